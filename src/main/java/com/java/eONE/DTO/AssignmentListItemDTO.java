@@ -0,0 +1,16 @@
+package com.java.eONE.DTO;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+
+public record AssignmentListItemDTO(Long id,
+                                    String title,
+                                    String description,
+                                    @JsonProperty("due_date") LocalDate dueDate,
+                                    @JsonProperty("subject_id") Long subjectId,
+                                    @JsonProperty("subject_name") String subjectName,
+                                    @JsonProperty("teacher_id") Long teacherId,
+                                    @JsonProperty("teacher_name") String teacherName,
+                                    @JsonProperty("file_url") String fileUrl) {
+}
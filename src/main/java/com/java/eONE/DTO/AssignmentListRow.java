@@ -0,0 +1,16 @@
+package com.java.eONE.DTO;
+
+import java.time.LocalDate;
+
+// One row of the assignment list, read by a single JPQL constructor query (see AssignmentRepository)
+public record AssignmentListRow(Long id,
+                                String title,
+                                String description,
+                                LocalDate dueDate,
+                                Long subjectId,
+                                String subjectName,
+                                Long teacherId,
+                                String teacherName,
+                                String file,
+                                String blobChecksum) {
+}
@@ -15,6 +15,9 @@ public class AssignmentResponseDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String fileUrl;
+    // From the blob row; null for files uploaded before the blob store
+    private Long fileSize;
+    private String contentType;
 
     // Getters and setters
     public Long getId() { return id; }
@@ -46,4 +49,10 @@ public class AssignmentResponseDTO {
 
     public String getFileUrl() { return fileUrl; }
     public void setFileUrl(String fileUrl) { this.fileUrl = fileUrl; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
 }
@@ -0,0 +1,13 @@
+package com.java.eONE.DTO;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+public record AssignmentStatsDTO(@JsonProperty("assignment_id") Long assignmentId,
+                                 @JsonProperty("submission_count") long submissionCount,
+                                 @JsonProperty("graded_count") long gradedCount,
+                                 @JsonProperty("pending_count") long pendingCount,
+                                 @JsonProperty("average_marks") Double averageMarks,
+                                 @JsonProperty("last_submission_at") LocalDateTime lastSubmissionAt) {
+}
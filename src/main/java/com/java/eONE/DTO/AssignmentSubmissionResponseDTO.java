@@ -30,6 +30,13 @@ public class AssignmentSubmissionResponseDTO {
     @JsonProperty("file_url")
     private String fileUrl; // computed field
 
+    // From the blob row; null for files uploaded before the blob store
+    @JsonProperty("file_size")
+    private Long fileSize;
+
+    @JsonProperty("content_type")
+    private String contentType;
+
     // Default constructor
     public AssignmentSubmissionResponseDTO() {
     }
@@ -127,4 +134,20 @@ public class AssignmentSubmissionResponseDTO {
     public void setFileUrl(String fileUrl) {
         this.fileUrl = fileUrl;
     }
-}
\ No newline at end of file
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+}
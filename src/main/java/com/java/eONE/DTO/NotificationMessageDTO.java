@@ -5,6 +5,8 @@ import java.time.LocalDateTime;
 
 public class NotificationMessageDTO {
 
+    private Long id;
+
     private String message;
 
     @JsonProperty("created_at") // converts createdAt -> created_at in JSON
@@ -18,10 +20,18 @@ public class NotificationMessageDTO {
         this.type = type;
     }
 
+    public NotificationMessageDTO(Long id, String message, LocalDateTime createdAt, String type) {
+        this(message, createdAt, type);
+        this.id = id;
+    }
+
     // Default constructor needed for Jackson
     public NotificationMessageDTO() {}
 
     // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
 
@@ -0,0 +1,27 @@
+package com.java.eONE.DTO;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public class NotificationPageDTO {
+
+    private List<NotificationMessageDTO> notifications;
+
+    // Opaque cursor for the next (older) page; null when there is nothing more to read
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    public NotificationPageDTO(List<NotificationMessageDTO> notifications, String nextCursor) {
+        this.notifications = notifications;
+        this.nextCursor = nextCursor;
+    }
+
+    // Default constructor needed for Jackson
+    public NotificationPageDTO() {}
+
+    public List<NotificationMessageDTO> getNotifications() { return notifications; }
+    public void setNotifications(List<NotificationMessageDTO> notifications) { this.notifications = notifications; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,28 @@
+package com.java.eONE.DTO;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Set;
+
+public class NotificationPreferenceDTO {
+
+    // "immediate", "digest" or "off"
+    @JsonProperty("submission_delivery")
+    private String submissionDelivery;
+
+    @JsonProperty("muted_subject_ids")
+    private Set<Long> mutedSubjectIds;
+
+    public NotificationPreferenceDTO(String submissionDelivery, Set<Long> mutedSubjectIds) {
+        this.submissionDelivery = submissionDelivery;
+        this.mutedSubjectIds = mutedSubjectIds;
+    }
+
+    // Default constructor needed for Jackson
+    public NotificationPreferenceDTO() {}
+
+    public String getSubmissionDelivery() { return submissionDelivery; }
+    public void setSubmissionDelivery(String submissionDelivery) { this.submissionDelivery = submissionDelivery; }
+
+    public Set<Long> getMutedSubjectIds() { return mutedSubjectIds; }
+    public void setMutedSubjectIds(Set<Long> mutedSubjectIds) { this.mutedSubjectIds = mutedSubjectIds; }
+}
@@ -134,6 +134,12 @@ public class ViewSubmittedAssignmentDTO {
     @JsonProperty("file_url")
     private String fileUrl;
 
+    // From the blob row; null for files uploaded before the blob store
+    @JsonProperty("file_size")
+    private Long fileSize;
+    @JsonProperty("content_type")
+    private String contentType;
+
     @JsonProperty("created_at")
     private LocalDateTime createdAt;
     private Integer marks;
@@ -160,6 +166,12 @@ public class ViewSubmittedAssignmentDTO {
     public String getFileUrl() { return fileUrl; }
     public void setFileUrl(String fileUrl) { this.fileUrl = fileUrl; }
 
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
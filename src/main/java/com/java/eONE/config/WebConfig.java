@@ -3,20 +3,12 @@ package com.java.eONE.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Map URL /uploads/** to local folder uploads/
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:uploads/");
-        registry.addResourceHandler("/submissionFile/**")
-        .addResourceLocations("file:" + System.getProperty("user.dir") + "/submissionFile/");
-    }
+    // /uploads/** and /submissionFile/** are served by FileController (ranges, ETags, sendfile)
     
     
 
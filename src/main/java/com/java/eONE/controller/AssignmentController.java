@@ -1,35 +1,39 @@
 package com.java.eONE.controller;
 
+import com.java.eONE.DTO.AssignmentListItemDTO;
+import com.java.eONE.DTO.AssignmentListRow;
 import com.java.eONE.DTO.AssignmentRequestDTO;
 import com.java.eONE.DTO.AssignmentResponseDTO;
+import com.java.eONE.DTO.AssignmentStatsDTO;
 import com.java.eONE.DTO.ViewSubmittedAssignmentDTO;
 import com.java.eONE.model.Assignment;
-import com.java.eONE.model.Notification;
 import com.java.eONE.model.Subject;
 import com.java.eONE.model.User;
 import com.java.eONE.repository.AssignmentRepository;
-import com.java.eONE.repository.NotificationRepository;
 import com.java.eONE.repository.SubjectRepository;
 import com.java.eONE.repository.UserRepository;
+import com.java.eONE.service.AssignmentService;
 import com.java.eONE.service.AssignmentSubmissionService;
+import com.java.eONE.service.BlobService;
+import com.java.eONE.service.SubmissionArchiveService;
+import com.java.eONE.service.UploadService;
 
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
-import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
+import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 @RestController
@@ -38,86 +42,97 @@ import java.util.*;
 public class AssignmentController {
 
     private final AssignmentRepository assignmentRepository;
-    private final NotificationRepository notificationRepository;
     private final SubjectRepository subjectRepository;
     private final UserRepository userRepository;
 
     @Autowired
     private AssignmentSubmissionService submissionService;
 
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private UploadService uploadService;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private SubmissionArchiveService archiveService;
+
     public AssignmentController(AssignmentRepository assignmentRepository,
-                                NotificationRepository notificationRepository,
                                 SubjectRepository subjectRepository,
                                 UserRepository userRepository) {
         this.assignmentRepository = assignmentRepository;
-        this.notificationRepository = notificationRepository;
         this.subjectRepository = subjectRepository;
         this.userRepository = userRepository;
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> createAssignment(
-            @RequestParam("title") String title,
-            @RequestParam("description") String description,
-            @RequestParam("due_date") @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate dueDate,
-            @RequestParam("subject_id") Long subjectId,
-            @RequestParam("teacher_id") Long teacherId,
-            @RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> createAssignment(HttpServletRequest request) {
+        // Fields: title, description, due_date (yyyy-MM-dd), subject_id, teacher_id, and file or the
+        // upload_id of a finished resumable upload
+        UploadService.UploadForm form;
+        try {
+            form = uploadService.receive(request, "file");
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", uploadService.tooLargeMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "File upload failed"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        String title;
+        String description;
+        LocalDate dueDate;
+        Long subjectId;
+        Long teacherId;
+        try {
+            title = form.require("title");
+            description = form.require("description");
+            dueDate = parseDate(form.require("due_date"));
+            subjectId = form.requireLong("subject_id");
+            teacherId = form.requireLong("teacher_id");
+            if (form.file() == null && form.get("upload_id") == null) {
+                throw new IllegalArgumentException("No file provided");
+            }
+        } catch (IllegalArgumentException e) {
+            uploadService.discard(form.file());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
 
         Optional<Subject> subjectOpt = subjectRepository.findById(subjectId);
         Optional<User> teacherOpt = userRepository.findById(teacherId);
 
         if (subjectOpt.isEmpty() || teacherOpt.isEmpty()) {
+            uploadService.discard(form.file());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", "Invalid subject_id or teacher_id"));
         }
 
-        String uploadDir = "uploads";
-        File directory = new File(uploadDir);
-        if (!directory.exists()) directory.mkdirs();
-
-        String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        Path filePath = Paths.get(uploadDir, fileName);
-        try {
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "File upload failed"));
-        }
-
         Assignment assignment = new Assignment();
         assignment.setTitle(title);
         assignment.setDescription(description);
         assignment.setDueDate(dueDate);
-        assignment.setFile(fileName);
         assignment.setSubject(subjectOpt.get());
         assignment.setTeacher(teacherOpt.get());
         assignment.setCreatedAt(LocalDateTime.now());
         assignment.setUpdatedAt(LocalDateTime.now());
 
-        Assignment saved = assignmentRepository.save(assignment);
-
-        // REMOVED: Teacher notification for assignment creation
-        // Assignment creation notifications should only go to students
-
-        // Create notifications for all students in the classroom
-        var subject = subjectOpt.get();
-        var classroom = subject.getClassroom();
-        if (classroom != null) {
-            // Get all students in the classroom
-            var students = userRepository.findByClassroomIdAndRoleName(classroom.getId(), "Student");
-            
-            for (User student : students) {
-                Notification studentNotification = new Notification();
-                studentNotification.setUser(student); // Set student as the recipient
-                studentNotification.setTeacher(null); // Ensure teacher is null for student notification
-                studentNotification.setAssignment(saved);
-                studentNotification.setMessage("New assignment created by " + teacherOpt.get().getName() + 
-                    ": " + saved.getTitle() + ". Due date: " + saved.getDueDate() + 
-                    ". Complete it before the due date!");
-                studentNotification.setCreatedAt(LocalDateTime.now());
-                studentNotification.setUpdatedAt(LocalDateTime.now());
-                notificationRepository.save(studentNotification);
+        // Student notifications are queued in the same transaction and delivered by the outbox dispatcher
+        Assignment saved;
+        if (form.file() != null) {
+            saved = assignmentService.createAssignment(assignment, form.file());
+        } else {
+            try {
+                saved = assignmentService.createAssignment(assignment, form.get("upload_id"));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
             }
         }
 
@@ -130,52 +145,28 @@ public class AssignmentController {
             @RequestParam(required = false) Long teacher_id,
             @RequestParam(required = false) Long student_id) {
 
-        List<Assignment> assignments;
-
+        List<AssignmentListRow> rows;
         if (teacher_id != null) {
-            assignments = assignmentRepository.findByTeacherId(teacher_id);
+            rows = assignmentRepository.findListRowsByTeacherId(teacher_id);
         } else if (student_id != null) {
-            Optional<User> studentOpt = userRepository.findById(student_id);
-            if (studentOpt.isEmpty()) {
+            if (!userRepository.existsById(student_id)) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Map.of("error", "Invalid student_id"));
             }
-
-            var classroom = studentOpt.get().getClassroom();
-            if (classroom == null) {
-                return ResponseEntity.ok(Collections.emptyList());
-            }
-
-            List<Long> subjectIds = classroom.getSubjects().stream()
-                    .map(Subject::getId)
-                    .toList();
-            assignments = assignmentRepository.findBySubjectIdIn(subjectIds);
+            rows = assignmentRepository.findListRowsByStudentId(student_id);
         } else {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "teacher_id or student_id parameter required"));
         }
 
-        List<Map<String, Object>> dtos = assignments.stream().map(a -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", a.getId());
-            map.put("title", a.getTitle());
-            map.put("description", a.getDescription());
-            map.put("due_date", a.getDueDate() != null ? a.getDueDate().toString() : null);
-            map.put("subject_id", a.getSubject() != null ? a.getSubject().getId() : null);
-            map.put("subject_name", a.getSubject() != null ? a.getSubject().getName() : null);
-            map.put("teacher_id", a.getTeacher() != null ? a.getTeacher().getId() : null);
-            map.put("teacher_name", a.getTeacher() != null ? a.getTeacher().getName() : null);
-
-            String fileUrl = null;
-            if (a.getFile() != null && !a.getFile().isEmpty()) {
-                fileUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                        .path("/uploads/")
-                        .path(a.getFile())
-                        .toUriString();
-            }
-            map.put("file_url", fileUrl);
-            return map;
-        }).toList();
+        // One query for the rows; the base URL is resolved once, not per row
+        String baseUrl = BlobService.currentBaseUrl();
+        List<AssignmentListItemDTO> dtos = new ArrayList<>(rows.size());
+        for (AssignmentListRow row : rows) {
+            dtos.add(new AssignmentListItemDTO(row.id(), row.title(), row.description(), row.dueDate(),
+                    row.subjectId(), row.subjectName(), row.teacherId(), row.teacherName(),
+                    blobService.fileUrl(baseUrl, row.blobChecksum(), row.file(), "/uploads/")));
+        }
 
         return ResponseEntity.ok(dtos);
     }
@@ -189,6 +180,36 @@ public class AssignmentController {
         return ResponseEntity.ok(submissions);
     }
 
+    // Submission totals for the teacher's overview, read from the stats row instead of the submissions
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<?> getStats(@PathVariable Long id) {
+        if (!assignmentRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Assignment not found"));
+        }
+        AssignmentStatsDTO stats = submissionService.getStats(id);
+        return ResponseEntity.ok(stats);
+    }
+
+    // All submissions as one ZIP, streamed as it is built (no temp file, constant memory).
+    // Typed as StreamingResponseBody so MVC streams it; an unknown id is a plain 404.
+    @GetMapping("/{id}/submissions.zip")
+    public ResponseEntity<StreamingResponseBody> downloadSubmissions(@PathVariable Long id) {
+        Optional<Assignment> opt = assignmentRepository.findById(id);
+        if (opt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        List<SubmissionArchiveService.ArchiveEntry> entries = archiveService.entriesFor(id);
+        StreamingResponseBody body = out -> archiveService.write(entries, out);
+        String fileName = opt.get().getTitle() + " - submissions.zip";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString())
+                .body(body);
+    }
+
     @PatchMapping("/submissions/{submissionId}/grade")
     public ResponseEntity<?> gradeSubmission(
             @PathVariable Long submissionId,
@@ -200,22 +221,6 @@ public class AssignmentController {
         boolean success = submissionService.submitMarks(submissionId, marks, grade);
 
         if (success) {
-            // Create notification for student about grading
-            var submissionOpt = submissionService.getSubmissionById(submissionId);
-            if (submissionOpt.isPresent()) {
-                var submission = submissionOpt.get();
-                Notification notification = new Notification();
-                notification.setUser(submission.getUser()); // Student who submitted
-                notification.setTeacher(null); // Ensure teacher is null for student notification
-                notification.setAssignment(submission.getAssignment());
-                notification.setMessage("Your assignment '" + submission.getAssignment().getTitle() + 
-                    "' has been graded. Marks: " + (marks != null ? marks : "N/A") + 
-                    (grade != null && !grade.isEmpty() ? ", Grade: " + grade : ""));
-                notification.setCreatedAt(LocalDateTime.now());
-                notification.setUpdatedAt(LocalDateTime.now());
-                notificationRepository.save(notification);
-            }
-            
             return ResponseEntity.ok(Map.of("message", "Marks submitted successfully"));
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -226,11 +231,7 @@ public class AssignmentController {
     @PatchMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> updateAssignment(
             @PathVariable Long id,
-            @RequestParam(required = false) String title,
-            @RequestParam(required = false) String description,
-            @RequestParam(name = "due_date", required = false)
-            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate dueDate,
-            @RequestParam(name = "file", required = false) MultipartFile file) {
+            HttpServletRequest request) {
 
         Optional<Assignment> opt = assignmentRepository.findById(id);
         if (opt.isEmpty()) {
@@ -250,28 +251,48 @@ public class AssignmentController {
                     .body(Map.of("error", "Cannot edit after grading started"));
         }
 
+        // Optional fields: title, description, due_date (yyyy-MM-dd), file or upload_id
+        UploadService.UploadForm form;
+        LocalDate dueDate;
+        try {
+            form = uploadService.receive(request, "file");
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", uploadService.tooLargeMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "File upload failed"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        try {
+            dueDate = form.get("due_date") != null ? parseDate(form.get("due_date")) : null;
+        } catch (IllegalArgumentException e) {
+            uploadService.discard(form.file());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        String title = form.get("title");
+        String description = form.get("description");
         if (title != null) assignment.setTitle(title);
         if (description != null) assignment.setDescription(description);
         if (dueDate != null) assignment.setDueDate(dueDate);
 
-        if (file != null && !file.isEmpty()) {
-            String uploadDir = "uploads";
-            File directory = new File(uploadDir);
-            if (!directory.exists()) directory.mkdirs();
-
-            String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            Path filePath = Paths.get(uploadDir, fileName);
+        assignment.setUpdatedAt(LocalDateTime.now());
+        Assignment saved;
+        if (form.file() != null) {
+            saved = assignmentService.replaceFile(assignment, form.file());
+        } else if (form.get("upload_id") != null) {
             try {
-                Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            } catch (IOException e) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(Map.of("error", "File upload failed"));
+                saved = assignmentService.replaceFile(assignment, form.get("upload_id"));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
             }
-            assignment.setFile(fileName);
+        } else {
+            saved = assignmentRepository.save(assignment);
         }
-
-        assignment.setUpdatedAt(LocalDateTime.now());
-        Assignment saved = assignmentRepository.save(assignment);
         return ResponseEntity.ok(Map.of("message", "Assignment updated", "assignment", saved));
     }
 
@@ -294,10 +315,18 @@ public class AssignmentController {
                     .body(Map.of("error", "Cannot delete with submissions"));
         }
 
-        assignmentRepository.deleteById(id);
+        assignmentService.deleteAssignment(assignment);
         return ResponseEntity.ok(Map.of("message", "Assignment deleted"));
     }
 
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid due_date, expected yyyy-MM-dd");
+        }
+    }
+
     private AssignmentResponseDTO mapToResponseDTO(Assignment assignment) {
         AssignmentResponseDTO dto = new AssignmentResponseDTO();
         dto.setId(assignment.getId());
@@ -310,12 +339,10 @@ public class AssignmentController {
         dto.setCreatedAt(assignment.getCreatedAt());
         dto.setUpdatedAt(assignment.getUpdatedAt());
 
-        if (assignment.getFile() != null) {
-            String url = ServletUriComponentsBuilder.fromCurrentContextPath()
-                    .path("/uploads/")
-                    .path(assignment.getFile())
-                    .toUriString();
-            dto.setFileUrl(url);
+        dto.setFileUrl(blobService.fileUrl(assignment.getFileBlob(), assignment.getFile(), "/uploads/"));
+        if (assignment.getFileBlob() != null) {
+            dto.setFileSize(assignment.getFileBlob().getByteSize());
+            dto.setContentType(BlobService.contentType(assignment.getFileBlob(), assignment.getFile()));
         }
 
         return dto;
@@ -4,6 +4,9 @@ import com.java.eONE.DTO.AssignmentSubmissionResponseDTO;
 import com.java.eONE.model.*;
 import com.java.eONE.repository.*;
 import com.java.eONE.service.AssignmentSubmissionService;
+import com.java.eONE.service.BlobService;
+import com.java.eONE.service.UploadService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,15 +17,10 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.http.MediaType;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @CrossOrigin(origins = "*")
@@ -32,63 +30,82 @@ public class AssignmentSubmissionController {
     private final AssignmentSubmissionService submissionService;
     private final AssignmentRepository assignmentRepository;
     private final UserRepository userRepository;
-    private final NotificationRepository notificationRepository;
+    private final UploadService uploadService;
+    private final BlobService blobService;
 
     public AssignmentSubmissionController(AssignmentSubmissionService submissionService,
                                           AssignmentRepository assignmentRepository,
                                           UserRepository userRepository,
-                                          NotificationRepository notificationRepository) {
+                                          UploadService uploadService,
+                                          BlobService blobService) {
         this.submissionService = submissionService;
         this.assignmentRepository = assignmentRepository;
         this.userRepository = userRepository;
-        this.notificationRepository = notificationRepository;
+        this.uploadService = uploadService;
+        this.blobService = blobService;
     }
 
     // ---------------- Create submission ----------------
+    // Fields: assignment_submission[assignment_id], assignment_submission[user_id], and assignment_submission[file]
+    // or assignment_submission[upload_id] naming a finished resumable upload
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> createSubmission(
-            @RequestParam("assignment_submission[assignment_id]") Long assignmentId,
-            @RequestParam("assignment_submission[user_id]") Long userId,
-            @RequestParam("assignment_submission[file]") MultipartFile file) {
+    public ResponseEntity<?> createSubmission(HttpServletRequest request) {
+        UploadService.UploadForm form;
+        try {
+            form = uploadService.receive(request, "assignment_submission[file]");
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", uploadService.tooLargeMessage()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to save file"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        Long assignmentId;
+        Long userId;
+        try {
+            assignmentId = form.requireLong("assignment_submission[assignment_id]");
+            userId = form.requireLong("assignment_submission[user_id]");
+            if (form.file() == null && form.get("assignment_submission[upload_id]") == null) {
+                throw new IllegalArgumentException("No file provided");
+            }
+        } catch (IllegalArgumentException e) {
+            uploadService.discard(form.file());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
 
         var assignment = assignmentRepository.findById(assignmentId).orElse(null);
         var user = userRepository.findById(userId).orElse(null);
 
         if (assignment == null || user == null) {
+            uploadService.discard(form.file());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", "Invalid assignment_id or user_id"));
         }
 
-        String uploadDir = System.getProperty("user.dir") + File.separator + "submissionFile";
-        String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        Path filePath = Paths.get(uploadDir, fileName);
-
-        try {
-            Files.createDirectories(Paths.get(uploadDir));
-            file.transferTo(filePath.toFile());
-        } catch (IOException e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to save file"));
-        }
-
         AssignmentSubmission submission = new AssignmentSubmission();
         submission.setAssignment(assignment);
         submission.setUser(user);
-        submission.setFile(fileName);
         submission.setCreatedAt(LocalDateTime.now());
         submission.setUpdatedAt(LocalDateTime.now());
 
-        AssignmentSubmission savedSubmission = submissionService.saveSubmission(submission);
-
-        // Create notification for teacher about student submission
-        Notification notification = new Notification();
-        notification.setTeacher(assignment.getTeacher()); // Set teacher as recipient
-        notification.setAssignment(assignment);
-        notification.setMessage(user.getName() + " has completed an assignment: " + assignment.getTitle() + ". Please review it.");
-        notification.setCreatedAt(LocalDateTime.now());
-        notification.setUpdatedAt(LocalDateTime.now());
-        notificationRepository.save(notification);
+        // Teacher notification is queued in the same transaction and delivered by the outbox dispatcher
+        AssignmentSubmission savedSubmission;
+        if (form.file() != null) {
+            savedSubmission = submissionService.createSubmission(submission, form.file());
+        } else {
+            try {
+                savedSubmission = submissionService.createSubmission(submission,
+                        form.get("assignment_submission[upload_id]"));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+            }
+        }
 
         AssignmentSubmissionResponseDTO responseDTO = new AssignmentSubmissionResponseDTO();
         responseDTO.setId(savedSubmission.getId());
@@ -100,11 +117,11 @@ public class AssignmentSubmissionController {
         responseDTO.setUpdatedAt(savedSubmission.getUpdatedAt());
         responseDTO.setMarks(savedSubmission.getMarks());
         responseDTO.setGrade(savedSubmission.getGrade());
-        String fileUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path("/submissionFile/")
-                .path(savedSubmission.getFile())
-                .toUriString();
-        responseDTO.setFileUrl(fileUrl);
+        responseDTO.setFileUrl(blobService.fileUrl(savedSubmission.getFileBlob(), savedSubmission.getFile(), "/submissionFile/"));
+        if (savedSubmission.getFileBlob() != null) {
+            responseDTO.setFileSize(savedSubmission.getFileBlob().getByteSize());
+            responseDTO.setContentType(BlobService.contentType(savedSubmission.getFileBlob(), savedSubmission.getFile()));
+        }
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(Map.of("message", "Submission successful", "submission", responseDTO));
@@ -119,19 +136,7 @@ public class AssignmentSubmissionController {
         Integer marks = (payload.get("marks") instanceof Number) ? ((Number) payload.get("marks")).intValue() : null;
         String grade = (String) payload.get("grade");
         AssignmentSubmission updatedSubmission = submissionService.updateMarksAndGrade(id, marks, grade);
-        
-        // Create notification for student about grading
-        Notification notification = new Notification();
-        notification.setUser(updatedSubmission.getUser()); // Student who submitted
-        notification.setTeacher(null); // Ensure teacher is null for student notification
-        notification.setAssignment(updatedSubmission.getAssignment());
-        notification.setMessage("Your assignment '" + updatedSubmission.getAssignment().getTitle() + 
-            "' has been graded. Marks: " + (marks != null ? marks : "N/A") + 
-            (grade != null && !grade.isEmpty() ? ", Grade: " + grade : ""));
-        notification.setCreatedAt(LocalDateTime.now());
-        notification.setUpdatedAt(LocalDateTime.now());
-        notificationRepository.save(notification);
-        
+
         return ResponseEntity.ok(Map.of("message", "Marks updated successfully", "submission", updatedSubmission));
     }
 
@@ -158,14 +163,11 @@ public class AssignmentSubmissionController {
                     dto.setGrade(sub.getGrade());
                     
                     // Generate proper file URL similar to how teacher assignments work
-                    String fileUrl = null;
-                    if (sub.getFile() != null && !sub.getFile().isEmpty()) {
-                        fileUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                                .path("/submissionFile/")
-                                .path(sub.getFile())
-                                .toUriString();
+                    dto.setFileUrl(blobService.fileUrl(sub.getFileBlob(), sub.getFile(), "/submissionFile/"));
+                    if (sub.getFileBlob() != null) {
+                        dto.setFileSize(sub.getFileBlob().getByteSize());
+                        dto.setContentType(BlobService.contentType(sub.getFileBlob(), sub.getFile()));
                     }
-                    dto.setFileUrl(fileUrl);
                     return dto;
                 }).collect(Collectors.toList());
 
@@ -176,7 +178,7 @@ public class AssignmentSubmissionController {
     @PatchMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> updateSubmissionFile(
             @PathVariable Long id,
-            @RequestParam("file") MultipartFile file
+            HttpServletRequest request
     ) {
         var opt = submissionService.getSubmissionById(id);
         if (opt.isEmpty()) {
@@ -193,21 +195,33 @@ public class AssignmentSubmissionController {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Past due date"));
         }
 
-        String uploadDir = System.getProperty("user.dir") + File.separator + "submissionFile";
-        String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        Path filePath = Paths.get(uploadDir, fileName);
-
+        // Checks above run before the body is read, so a rejected request never touches the disk
+        UploadService.UploadForm form;
         try {
-            Files.createDirectories(Paths.get(uploadDir));
-            file.transferTo(filePath.toFile());
+            form = uploadService.receive(request, "file");
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", uploadService.tooLargeMessage()));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to save file"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
-
-        submission.setFile(fileName);
         submission.setUpdatedAt(LocalDateTime.now());
-        submissionService.saveSubmission(submission);
+        if (form.file() != null) {
+            submissionService.replaceFile(submission, form.file());
+        } else if (form.get("upload_id") != null) {
+            try {
+                submissionService.replaceFile(submission, form.get("upload_id"));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+            }
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("error", "No file provided"));
+        }
 
         return ResponseEntity.ok(Map.of("message", "Submission updated"));
     }
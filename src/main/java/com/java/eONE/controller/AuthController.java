@@ -38,9 +38,7 @@ public class AuthController {
         }
 
         // Construct response DTO without token
-        String avatarUrl = (user.getAvatar() != null && !user.getAvatar().isEmpty())
-                ? "/uploads/" + user.getAvatar()
-                : null;
+        String avatarUrl = UserService.avatarPath(user);
         UserResponseDTO responseDTO = new UserResponseDTO(
                 user.getId(),
                 user.getEmail(),
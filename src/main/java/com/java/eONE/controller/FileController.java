@@ -0,0 +1,147 @@
+package com.java.eONE.controller;
+
+import com.java.eONE.model.StorageBlob;
+import com.java.eONE.model.StorageBlobVariant;
+import com.java.eONE.repository.StorageBlobRepository;
+import com.java.eONE.service.BlobService;
+import com.java.eONE.service.FileDownloadService;
+import com.java.eONE.service.ImageVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * File downloads: blobs by checksum, plus the legacy uploads/ and submissionFile/ URLs of files
+ * stored before the blob store. Bodies, ranges and caching are handled by FileDownloadService.
+ */
+@RestController
+@CrossOrigin(origins = "*")
+public class FileController {
+
+    private final StorageBlobRepository blobRepository;
+    private final BlobService blobService;
+    private final FileDownloadService downloadService;
+    private final ImageVariantService variantService;
+
+    public FileController(StorageBlobRepository blobRepository,
+                          BlobService blobService,
+                          FileDownloadService downloadService,
+                          ImageVariantService variantService) {
+        this.blobRepository = blobRepository;
+        this.blobService = blobService;
+        this.downloadService = downloadService;
+        this.variantService = variantService;
+    }
+
+    // The file name is only for the browser (content type, save-as name); the blob's SHA-256 selects the content.
+    // The serial id never appears in a URL, so files cannot be fetched by counting through ids.
+    // With an object-store backend this redirects to a presigned URL so the bytes bypass the app.
+    // ?variant=thumb|medium serves a resized JPEG of an image blob instead of the original.
+    // Blobs gzipped in the cold tier are decompressed on the way out.
+    @RequestMapping(value = "/api/v1/files/{checksum:[0-9a-f]{64}}/{filename:.+}",
+            method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void download(@PathVariable String checksum, @PathVariable String filename,
+                         @RequestParam(required = false) String variant,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StorageBlob blob = blobRepository.findByChecksum(checksum).orElse(null);
+        if (blob == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (variant == null) {
+            // The checksum is the content, so it is a strong validator; size comes from the row, not a stat
+            serveStored(blob.getStorageKey(), blob.getContentEncoding(), blob.getByteSize(),
+                    "\"" + blob.getChecksum() + "\"", filename, BlobService.contentType(blob, filename),
+                    request, response);
+            return;
+        }
+
+        ImageVariantService.Variant requested = ImageVariantService.Variant.parse(variant).orElse(null);
+        if (requested == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        StorageBlobVariant rendition = variantService.find(blob, requested).orElse(null);
+        if (rendition == null) {
+            // Not rendered yet (or not an image): send the original, and keep this answer out of caches
+            // so the variant is picked up once it exists
+            variantService.requestVariants(blob, filename);
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            response.setHeader(HttpHeaders.LOCATION, BlobService.downloadPath(blob, filename));
+            return;
+        }
+        serveStored(rendition.getStorageKey(), null, rendition.getByteSize(),
+                "\"" + blob.getChecksum() + "-" + requested.key() + "\"",
+                ImageVariantService.variantFileName(filename, requested), MediaType.IMAGE_JPEG_VALUE,
+                request, response);
+    }
+
+    // Everything needed for the headers comes from the row; the storage is only touched for the body
+    private void serveStored(String storageKey, String contentEncoding, long size, String etag, String filename,
+                             String contentType, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        blobService.countRead(storageKey);
+        if (contentEncoding != null) {
+            // Compressed objects cannot be handed to the client as they are stored
+            downloadService.serve(() -> blobService.open(storageKey, contentEncoding), size, etag, filename,
+                    contentType, request, response);
+            return;
+        }
+
+        Optional<URI> direct = blobService.directDownloadUrl(storageKey, filename, contentType);
+        if (direct.isPresent()) {
+            // Presigned at click time; the redirect must not outlive the signature in a cache
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            response.setHeader(HttpHeaders.LOCATION, direct.get().toString());
+            return;
+        }
+
+        Path path = blobService.localPath(storageKey).orElse(null);
+        if (path == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        downloadService.serve(path, size, etag, filename, contentType, request, response);
+    }
+
+    @RequestMapping(value = "/uploads/{filename:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void legacyUpload(@PathVariable String filename,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveLegacy(BlobService.LEGACY_UPLOADS_DIR, filename, request, response);
+    }
+
+    @RequestMapping(value = "/submissionFile/{filename:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void legacySubmission(@PathVariable String filename,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serveLegacy(BlobService.LEGACY_SUBMISSIONS_DIR, filename, request, response);
+    }
+
+    private void serveLegacy(Path directory, String filename,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path base = directory.toAbsolutePath().normalize();
+        Path path = base.resolve(filename).normalize();
+        if (!path.getParent().equals(base) || !Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // Legacy names carry an upload timestamp and are never rewritten, so size + mtime identify the content
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        String etag = "\"" + Long.toHexString(attributes.size()) + "-"
+                + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+        String displayName = BlobService.legacyDisplayName(filename);
+        downloadService.serve(path, attributes.size(), etag, displayName,
+                BlobService.contentType(displayName).toString(), request, response);
+    }
+}
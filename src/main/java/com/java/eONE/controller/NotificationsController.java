@@ -1,16 +1,22 @@
 package com.java.eONE.controller;
 
 import com.java.eONE.DTO.NotificationMessageDTO;
+import com.java.eONE.DTO.NotificationPreferenceDTO;
 import com.java.eONE.model.Notification;
 import com.java.eONE.model.User;
 import com.java.eONE.repository.AssignmentRepository;
 import com.java.eONE.repository.NotificationRepository;
 import com.java.eONE.repository.SubjectRepository;
 import com.java.eONE.repository.UserRepository;
+import com.java.eONE.service.NotificationCursor;
+import com.java.eONE.service.NotificationLongPollService;
+import com.java.eONE.service.NotificationPreferenceService;
 import com.java.eONE.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
 import java.util.Map;
@@ -34,22 +40,108 @@ public class NotificationsController {
     @Autowired
     private SubjectRepository subjectRepository;
 
+    @Autowired
+    private NotificationPreferenceService preferenceService;
+
+    @Autowired
+    private NotificationLongPollService longPollService;
+
     public NotificationsController(NotificationService notificationService) {
         this.notificationService = notificationService;
     }
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_POLL_TIMEOUT_SECONDS = 25;
+    private static final int MAX_POLL_TIMEOUT_SECONDS = 60;
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getUserNotifications(
             @PathVariable Long id,
-            @RequestParam(required = false) Integer limit) {
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(name = "page_size", required = false) Integer pageSize) {
+
+        // Cursor mode: { notifications: [...], next_cursor: "..." }
+        // Both modes write pre-encoded notification payloads (see NotificationPayloadCache)
+        if (cursor != null || pageSize != null) {
+            int size = pageSize == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+            try {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(notificationService.getNotificationPageJson(id, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(notificationService.getUserNotificationsJson(id, limit));
+    }
+
+    // Long poll: answers with { notifications, latest_cursor, has_more } as soon as anything newer than ?cursor=
+    // exists, or 304 after ?timeout= seconds. Notifications after a cursor come oldest first; poll again with
+    // latest_cursor right away while has_more is true. Without a cursor the newest notifications are returned.
+    @GetMapping("/{id}/poll")
+    public DeferredResult<ResponseEntity<?>> pollNotifications(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer timeout,
+            @RequestParam(name = "page_size", required = false) Integer pageSize) {
+        int size = pageSize == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        int seconds = timeout == null ? DEFAULT_POLL_TIMEOUT_SECONDS
+                : Math.max(1, Math.min(timeout, MAX_POLL_TIMEOUT_SECONDS));
+
+        NotificationCursor since;
+        try {
+            since = cursor != null && !cursor.isEmpty() ? NotificationCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            DeferredResult<ResponseEntity<?>> badRequest = new DeferredResult<>();
+            badRequest.setResult(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+            return badRequest;
+        }
+        return longPollService.poll(id, since, size, seconds * 1000L);
+    }
 
-        List<NotificationMessageDTO> notifications = notificationService.getUserNotifications(id, limit);
+    @GetMapping("/{id}/unread_count")
+    public ResponseEntity<?> getUnreadCount(@PathVariable Long id) {
+        return ResponseEntity.ok(Map.of("unread_count", notificationService.getUnreadCount(id)));
+    }
 
-        if (notifications == null) {
-            notifications = List.of(); // return empty list instead of null
+    // Marks all notifications as read, or only those up to and including ?cursor=
+    @PatchMapping("/{id}/mark_read")
+    public ResponseEntity<?> markRead(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor) {
+        try {
+            int marked = notificationService.markRead(id, cursor);
+            return ResponseEntity.ok(Map.of(
+                    "marked", marked,
+                    "unread_count", notificationService.getUnreadCount(id)
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
+    }
+
+    @GetMapping("/{id}/preferences")
+    public ResponseEntity<?> getPreferences(@PathVariable Long id) {
+        return ResponseEntity.ok(preferenceService.getPreferences(id));
+    }
 
-        return ResponseEntity.ok(notifications);
+    @PutMapping("/{id}/preferences")
+    public ResponseEntity<?> updatePreferences(
+            @PathVariable Long id,
+            @RequestBody NotificationPreferenceDTO preferences) {
+        if (userRepository.findById(id).isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+        }
+        try {
+            return ResponseEntity.ok(preferenceService.updatePreferences(id, preferences));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // Test endpoint to verify notification creation
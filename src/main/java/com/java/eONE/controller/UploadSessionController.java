@@ -0,0 +1,154 @@
+package com.java.eONE.controller;
+
+import com.java.eONE.model.UploadSession;
+import com.java.eONE.service.ResumableUploadService;
+import com.java.eONE.service.UploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Resumable uploads (tus 1.0 core subset). Create with POST and an {@code Upload-Length} header,
+ * send the bytes with PATCH (or PUT) and {@code Upload-Offset}, and after a dropped connection ask
+ * HEAD for the stored offset and continue from there. The finished upload's id is then passed as
+ * {@code upload_id} in place of the file part to the assignment and submission endpoints.
+ */
+@RestController
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.LOCATION, UploadSessionController.UPLOAD_OFFSET,
+        UploadSessionController.UPLOAD_LENGTH, UploadSessionController.TUS_RESUMABLE})
+@RequestMapping("/api/v1/uploads")
+public class UploadSessionController {
+
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+    static final String UPLOAD_LENGTH = "Upload-Length";
+    static final String UPLOAD_METADATA = "Upload-Metadata";
+    static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+
+    private final ResumableUploadService resumableUploadService;
+    private final UploadService uploadService;
+
+    public UploadSessionController(ResumableUploadService resumableUploadService, UploadService uploadService) {
+        this.resumableUploadService = resumableUploadService;
+        this.uploadService = uploadService;
+    }
+
+    // Headers: Upload-Length (bytes), optional Upload-Metadata "filename <base64>" (or "name <base64>") as tus
+    // clients send it; without a file name the upload is stored as "file"
+    @PostMapping
+    public ResponseEntity<?> create(@RequestHeader(UPLOAD_LENGTH) long length,
+                                    @RequestHeader(value = UPLOAD_METADATA, required = false) String metadata) {
+        UploadSession session;
+        try {
+            session = resumableUploadService.create(fileName(metadata), length);
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", uploadService.tooLargeMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Could not start upload"));
+        }
+        return ResponseEntity.created(URI.create("/api/v1/uploads/" + session.getId()))
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, "0")
+                .body(Map.of("upload_id", session.getId(), "offset", 0));
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<?> offset(@PathVariable String id) {
+        return resumableUploadService.find(id)
+                .<ResponseEntity<?>>map(session -> ResponseEntity.ok()
+                        .header(TUS_RESUMABLE, TUS_VERSION)
+                        .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()))
+                        .header(UPLOAD_LENGTH, String.valueOf(session.getUploadLength()))
+                        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                        .build())
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // The body is the raw chunk (tus uses Content-Type: application/offset+octet-stream)
+    @RequestMapping(value = "/{id}", method = {RequestMethod.PATCH, RequestMethod.PUT})
+    public ResponseEntity<?> appendChunk(@PathVariable String id,
+                                         @RequestHeader(UPLOAD_OFFSET) long offset,
+                                         HttpServletRequest request) {
+        UploadSession session = resumableUploadService.find(id).orElse(null);
+        if (session == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Upload not found"));
+        }
+
+        long next;
+        try {
+            next = resumableUploadService.append(session, offset, request.getInputStream());
+        } catch (ResumableUploadService.OffsetConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(TUS_RESUMABLE, TUS_VERSION)
+                    .header(UPLOAD_OFFSET, String.valueOf(e.getCurrentOffset()))
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            // Usually the client dropped; whatever arrived is kept and HEAD reports it
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Chunk interrupted"));
+        }
+        return ResponseEntity.noContent()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(next))
+                .build();
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> abort(@PathVariable String id) {
+        UploadSession session = resumableUploadService.find(id).orElse(null);
+        if (session == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Upload not found"));
+        }
+        try {
+            resumableUploadService.abort(session);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Could not remove upload"));
+        }
+        return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+    }
+
+    // Upload-Metadata is a comma-separated list of "key base64value"; the name is under filename or name
+    private static String fileName(String metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        String fallback = null;
+        for (String pair : metadata.split(",")) {
+            String[] parts = pair.trim().split(" ", 2);
+            if (parts.length < 2) {
+                continue;
+            }
+            String value;
+            try {
+                value = new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid Upload-Metadata");
+            }
+            if ("filename".equals(parts[0])) {
+                return value;
+            }
+            if ("name".equals(parts[0])) {
+                fallback = value;
+            }
+        }
+        return fallback;
+    }
+}
@@ -7,20 +7,18 @@ import com.java.eONE.model.Role;
 import com.java.eONE.model.User;
 import com.java.eONE.repository.ClassroomRepository;
 import com.java.eONE.repository.RoleRepository;
+import com.java.eONE.service.UploadService;
 import com.java.eONE.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.format.annotation.DateTimeFormat;
 import java.time.LocalDate;
-import java.io.File;
+import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 import java.util.List;
 import java.util.Map;
@@ -33,6 +31,7 @@ public class UserController {
     @Autowired private UserService userService;
     @Autowired private RoleRepository roleRepository;
     @Autowired private ClassroomRepository classroomRepository;
+    @Autowired private UploadService uploadService;
     
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody User user,
@@ -176,25 +175,26 @@ public class UserController {
     @PostMapping(value = "/{id}/avatar", consumes = org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> uploadAvatar(
             @PathVariable Long id,
-            @RequestParam("file") MultipartFile file
+            HttpServletRequest request
     ) {
-        if (file.isEmpty()) {
-            return ResponseEntity.status(400).body(Map.of("error", "No file provided"));
-        }
-        String uploadDir = "uploads";
-        File directory = new File(uploadDir);
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
-        String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        Path filePath = Paths.get(uploadDir, fileName);
+        UploadService.UploadForm form;
         try {
-            Files.copy(file.getInputStream(), filePath);
+            form = uploadService.receive(request, "file");
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(413).body(Map.of("error", uploadService.tooLargeMessage()));
         } catch (IOException e) {
             return ResponseEntity.status(500).body(Map.of("error", "File upload failed"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
+        }
+        if (form.file() == null) {
+            return ResponseEntity.status(400).body(Map.of("error", "No file provided"));
+        }
+        var dto = userService.setAvatar(id, form.file());
+        if (dto == null) {
+            uploadService.discard(form.file());
+            return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
-        var dto = userService.setAvatarFilename(id, fileName);
-        if (dto == null) return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         return ResponseEntity.ok(Map.of("user", dto));
     }
 
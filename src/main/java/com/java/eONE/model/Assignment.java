@@ -1,5 +1,6 @@
 package com.java.eONE.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDate;
@@ -9,7 +10,8 @@ import java.util.List;
 @Entity
 @Table(name = "assignments", indexes = {
     @Index(name = "index_assignments_on_subject_id", columnList = "subject_id"),
-    @Index(name = "index_assignments_on_teacher_id", columnList = "teacher_id")
+    @Index(name = "index_assignments_on_teacher_id", columnList = "teacher_id"),
+    @Index(name = "index_assignments_on_file_blob_id", columnList = "file_blob_id")
 })
 public class Assignment {
 
@@ -26,14 +28,20 @@ public class Assignment {
     @Column(name = "due_date")
     private LocalDate dueDate;
 
-    // File name or path stored in DB (adjust type if needed)
+    // Original file name shown to users; the content lives in fileBlob
+    // (rows from before the blob store hold a timestamped name under uploads/ instead)
     private String file;
 
-    @ManyToOne(optional = false)
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "file_blob_id")
+    private StorageBlob fileBlob;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "subject_id", nullable = false)
     private Subject subject;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id")
     private User teacher;
 
@@ -102,6 +110,14 @@ public class Assignment {
         this.file = file;
     }
 
+    public StorageBlob getFileBlob() {
+        return fileBlob;
+    }
+
+    public void setFileBlob(StorageBlob fileBlob) {
+        this.fileBlob = fileBlob;
+    }
+
     public Subject getSubject() {
         return subject;
     }
@@ -152,6 +168,9 @@ public class Assignment {
 
     // Helper method similar to Rails file_url
     public String getFileUrl() {
+        if (fileBlob != null) {
+            return "http://localhost:8080/api/v1/files/" + fileBlob.getId() + "/" + file;
+        }
         if (file != null && !file.isEmpty()) {
             // Replace with your actual base URL or storage service URL
         	 return "http://localhost:8080/uploads/" + file;
@@ -0,0 +1,95 @@
+package com.java.eONE.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Per-assignment submission totals, maintained in the transactions that create and grade
+ * submissions so the edit/delete guards and teacher views never scan the submissions.
+ */
+@Entity
+@Table(name = "assignment_stats")
+public class AssignmentStats {
+
+    @Id
+    @Column(name = "assignment_id")
+    private Long assignmentId;
+
+    @Column(name = "submission_count", nullable = false)
+    private Long submissionCount = 0L;
+
+    // Submissions with marks or a grade
+    @Column(name = "graded_count", nullable = false)
+    private Long gradedCount = 0L;
+
+    // Submissions with marks, and the sum of those marks
+    @Column(name = "marked_count", nullable = false)
+    private Long markedCount = 0L;
+
+    @Column(name = "marks_sum", nullable = false)
+    private Long marksSum = 0L;
+
+    @Column(name = "last_submission_at")
+    private LocalDateTime lastSubmissionAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters and setters
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public Long getSubmissionCount() {
+        return submissionCount;
+    }
+
+    public void setSubmissionCount(Long submissionCount) {
+        this.submissionCount = submissionCount;
+    }
+
+    public Long getGradedCount() {
+        return gradedCount;
+    }
+
+    public void setGradedCount(Long gradedCount) {
+        this.gradedCount = gradedCount;
+    }
+
+    public Long getMarkedCount() {
+        return markedCount;
+    }
+
+    public void setMarkedCount(Long markedCount) {
+        this.markedCount = markedCount;
+    }
+
+    public Long getMarksSum() {
+        return marksSum;
+    }
+
+    public void setMarksSum(Long marksSum) {
+        this.marksSum = marksSum;
+    }
+
+    public LocalDateTime getLastSubmissionAt() {
+        return lastSubmissionAt;
+    }
+
+    public void setLastSubmissionAt(LocalDateTime lastSubmissionAt) {
+        this.lastSubmissionAt = lastSubmissionAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,12 +1,14 @@
 package com.java.eONE.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "assignment_submissions", indexes = {
     @Index(name = "index_assignment_submissions_on_assignment_id", columnList = "assignment_id"),
-    @Index(name = "index_assignment_submissions_on_user_id", columnList = "user_id")
+    @Index(name = "index_assignment_submissions_on_user_id", columnList = "user_id"),
+    @Index(name = "index_assignment_submissions_on_file_blob_id", columnList = "file_blob_id")
 })
 public class AssignmentSubmission {
 
@@ -14,16 +16,23 @@ public class AssignmentSubmission {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "assignment_id", nullable = false)
     private Assignment assignment;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Original file name shown to users; the content lives in fileBlob
+    // (rows from before the blob store hold a timestamped name under submissionFile/ instead)
     private String file;
 
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "file_blob_id")
+    private StorageBlob fileBlob;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -96,6 +105,14 @@ public class AssignmentSubmission {
         this.updatedAt = updatedAt;
     }
 
+    public StorageBlob getFileBlob() {
+        return fileBlob;
+    }
+
+    public void setFileBlob(StorageBlob fileBlob) {
+        this.fileBlob = fileBlob;
+    }
+
     public Integer getMarks() {
         return marks;
     }
@@ -114,6 +131,9 @@ public class AssignmentSubmission {
 
     // Helper method to get file URL (similar to Rails' file_url)
     public String getFileUrl() {
+        if (fileBlob != null) {
+            return "http://localhost:8080/api/v1/files/" + fileBlob.getId() + "/" + file;
+        }
         if (file != null && !file.isEmpty()) {
             return "http://localhost:8080/submissionFile/" + file;
         }
@@ -0,0 +1,50 @@
+package com.java.eONE.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Read state of classroom broadcasts for one user: every broadcast with
+ * id <= readThroughId counts as read. Broadcast notifications are stored once per
+ * classroom, so this watermark replaces a read_at column on per-student copies.
+ */
+@Entity
+@Table(name = "broadcast_read_states")
+public class BroadcastReadState {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "read_through_id", nullable = false)
+    private Long readThroughId = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters and setters
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getReadThroughId() {
+        return readThroughId;
+    }
+
+    public void setReadThroughId(Long readThroughId) {
+        this.readThroughId = readThroughId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -7,7 +7,10 @@ import java.time.LocalDateTime;
 @Table(name = "notifications", indexes = {
     @Index(name = "index_notifications_on_assignment_id", columnList = "assignment_id"),
     @Index(name = "index_notifications_on_teacher_id", columnList = "teacher_id"),
-    @Index(name = "index_notifications_on_user_id", columnList = "user_id")
+    @Index(name = "index_notifications_on_user_id", columnList = "user_id"),
+    @Index(name = "index_notifications_on_user_id_and_created_at_and_id", columnList = "user_id, created_at, id"),
+    @Index(name = "index_notifications_on_teacher_id_and_created_at_and_id", columnList = "teacher_id, created_at, id"),
+    @Index(name = "index_notifications_on_classroom_id_and_created_at_and_id", columnList = "classroom_id, created_at, id")
 })
 public class Notification {
 
@@ -15,18 +18,23 @@ public class Notification {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assignment_id", nullable = true)
     private Assignment assignment;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", nullable = true)
     private User teacher;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = true)
     private User user;
 
+    // Set for class-wide broadcasts: one row for every student of the classroom (user and teacher stay null)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "classroom_id", nullable = true)
+    private Classroom classroom;
+
     @Column(columnDefinition = "TEXT")
     private String message;
 
@@ -84,6 +92,14 @@ public class Notification {
         this.user = user;
     }
 
+    public Classroom getClassroom() {
+        return classroom;
+    }
+
+    public void setClassroom(Classroom classroom) {
+        this.classroom = classroom;
+    }
+
     public String getMessage() {
         return message;
     }
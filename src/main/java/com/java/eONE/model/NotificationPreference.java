@@ -0,0 +1,85 @@
+package com.java.eONE.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+@Entity
+@Table(name = "notification_preferences")
+public class NotificationPreference {
+
+    public static final String DELIVERY_IMMEDIATE = "immediate";
+    public static final String DELIVERY_DIGEST = "digest";
+    public static final String DELIVERY_OFF = "off";
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // How a teacher hears about new submissions: immediate, digest or off
+    @Column(name = "submission_delivery", nullable = false)
+    private String submissionDelivery = DELIVERY_IMMEDIATE;
+
+    @Column(name = "last_digest_at")
+    private LocalDateTime lastDigestAt;
+
+    // Subjects the user does not want to be notified about
+    @ElementCollection
+    @CollectionTable(name = "notification_muted_subjects",
+            joinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "index_notification_muted_subjects_on_subject_id", columnList = "subject_id"))
+    @Column(name = "subject_id", nullable = false)
+    private Set<Long> mutedSubjectIds = new HashSet<>();
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getSubmissionDelivery() {
+        return submissionDelivery;
+    }
+
+    public void setSubmissionDelivery(String submissionDelivery) {
+        this.submissionDelivery = submissionDelivery;
+    }
+
+    public LocalDateTime getLastDigestAt() {
+        return lastDigestAt;
+    }
+
+    public void setLastDigestAt(LocalDateTime lastDigestAt) {
+        this.lastDigestAt = lastDigestAt;
+    }
+
+    public Set<Long> getMutedSubjectIds() {
+        return mutedSubjectIds;
+    }
+
+    public void setMutedSubjectIds(Set<Long> mutedSubjectIds) {
+        this.mutedSubjectIds = mutedSubjectIds;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
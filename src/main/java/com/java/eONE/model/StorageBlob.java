@@ -0,0 +1,125 @@
+package com.java.eONE.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One stored file content, keyed by its SHA-256. Assignments, submissions and avatars
+ * point at a blob instead of owning a copy, so identical uploads share a single file.
+ * {@code ref_count} counts those pointers; {@code unreferenced_since} is set while it is zero
+ * and starts the grace period after which StorageGarbageCollector deletes the blob.
+ * Blobs moved to the cold tier by StorageTieringService live under {@code cold/} and may be
+ * stored gzip-compressed, recorded in {@code content_encoding}.
+ */
+@Entity
+@Table(name = "storage_blobs", indexes = {
+    @Index(name = "index_storage_blobs_on_checksum", columnList = "checksum", unique = true)
+})
+public class StorageBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Lowercase hex SHA-256 of the content
+    @Column(nullable = false, length = 64)
+    private String checksum;
+
+    @Column(name = "byte_size", nullable = false)
+    private Long byteSize;
+
+    // MIME type derived from the file name the content was first uploaded under
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 0;
+
+    // Location relative to the storage root
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "unreferenced_since")
+    private LocalDateTime unreferencedSince;
+
+    // How the stored bytes are encoded: null for as uploaded, "gzip" for compressed in the cold tier
+    @Column(name = "content_encoding", length = 16)
+    private String contentEncoding;
+
+    // Getters and setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public Long getByteSize() {
+        return byteSize;
+    }
+
+    public void setByteSize(Long byteSize) {
+        this.byteSize = byteSize;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Integer getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(Integer refCount) {
+        this.refCount = refCount;
+    }
+
+    public String getStorageKey() {
+        return storageKey;
+    }
+
+    public void setStorageKey(String storageKey) {
+        this.storageKey = storageKey;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUnreferencedSince() {
+        return unreferencedSince;
+    }
+
+    public void setUnreferencedSince(LocalDateTime unreferencedSince) {
+        this.unreferencedSince = unreferencedSince;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public void setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+}
@@ -0,0 +1,86 @@
+package com.java.eONE.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A resized rendition of an image blob (avatar thumbnails and the like), stored next to the
+ * original under {@code variants/ab/cd/<checksum>/<variation>.jpg}. At most one row per blob and variation.
+ */
+@Entity
+@Table(name = "storage_blob_variants", indexes = {
+    @Index(name = "index_storage_blob_variants_uniqueness", columnList = "blob_id, variation", unique = true)
+})
+public class StorageBlobVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "blob_id", nullable = false)
+    private StorageBlob blob;
+
+    // Variant name, e.g. thumb or medium
+    @Column(nullable = false, length = 32)
+    private String variation;
+
+    @Column(name = "byte_size", nullable = false)
+    private Long byteSize;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Getters and setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public StorageBlob getBlob() {
+        return blob;
+    }
+
+    public void setBlob(StorageBlob blob) {
+        this.blob = blob;
+    }
+
+    public String getVariation() {
+        return variation;
+    }
+
+    public void setVariation(String variation) {
+        this.variation = variation;
+    }
+
+    public Long getByteSize() {
+        return byteSize;
+    }
+
+    public void setByteSize(Long byteSize) {
+        this.byteSize = byteSize;
+    }
+
+    public String getStorageKey() {
+        return storageKey;
+    }
+
+    public void setStorageKey(String storageKey) {
+        this.storageKey = storageKey;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
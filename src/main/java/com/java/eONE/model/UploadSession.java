@@ -0,0 +1,86 @@
+package com.java.eONE.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload in progress. The bytes received so far sit in a part file in the staging
+ * area; {@code upload_offset} is how many of them are durable, and is where the next chunk starts.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "index_upload_sessions_on_updated_at", columnList = "updated_at")
+})
+public class UploadSession {
+
+    // Time-ordered UUID (v7), also the client's handle on the upload
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "upload_length", nullable = false)
+    private Long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private Long uploadOffset = 0L;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Last time a chunk arrived; idle sessions are purged
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters and setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getUploadLength() {
+        return uploadLength;
+    }
+
+    public void setUploadLength(Long uploadLength) {
+        this.uploadLength = uploadLength;
+    }
+
+    public Long getUploadOffset() {
+        return uploadOffset;
+    }
+
+    public void setUploadOffset(Long uploadOffset) {
+        this.uploadOffset = uploadOffset;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
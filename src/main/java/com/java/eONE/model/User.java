@@ -1,5 +1,6 @@
 package com.java.eONE.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -30,11 +31,11 @@ public class User {
     @Column(name = "date_of_birth")
     private LocalDate dateOfBirth;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "role_id", nullable = false)
     private Role role;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "classroom_id")
     private Classroom classroom;
 
@@ -44,9 +45,15 @@ public class User {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Original file name of the avatar; the content lives in avatarBlob
     @Column(name = "avatar")
     private String avatar;
 
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "avatar_blob_id")
+    private StorageBlob avatarBlob;
+
     // Getters and setters
     @Transient
     private String password;  // plain password input from client (not persisted)
@@ -165,4 +172,12 @@ public class User {
     public void setAvatar(String avatar) {
         this.avatar = avatar;
     }
+
+    public StorageBlob getAvatarBlob() {
+        return avatarBlob;
+    }
+
+    public void setAvatarBlob(StorageBlob avatarBlob) {
+        this.avatarBlob = avatarBlob;
+    }
 }
@@ -1,19 +1,34 @@
 package com.java.eONE.repository;
 
+import com.java.eONE.DTO.AssignmentListRow;
 import com.java.eONE.model.Assignment;
 
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
 	
-	List<Assignment> findByTeacherId(Long teacherId);
+    @EntityGraph(attributePaths = "fileBlob")
     List<Assignment> findBySubjectIdIn(List<Long> subjectIds);
 
+    // The assignment list in one query, with exactly the columns it shows (no entities, no lazy loads)
+    String LIST_ROW = "SELECT new com.java.eONE.DTO.AssignmentListRow(a.id, a.title, a.description, a.dueDate, " +
+            "s.id, s.name, t.id, t.name, a.file, b.checksum) " +
+            "FROM Assignment a JOIN a.subject s LEFT JOIN a.teacher t LEFT JOIN a.fileBlob b ";
+
+    @Query(LIST_ROW + "WHERE t.id = :teacherId ORDER BY a.id")
+    List<AssignmentListRow> findListRowsByTeacherId(@Param("teacherId") Long teacherId);
+
+    // Assignments of every subject in the student's classroom; none when the student has no classroom
+    @Query(LIST_ROW + "WHERE s.classroom.id = (SELECT u.classroom.id FROM User u WHERE u.id = :studentId) ORDER BY a.id")
+    List<AssignmentListRow> findListRowsByStudentId(@Param("studentId") Long studentId);
+
     // You need this to fetch submissions for an assignment (adjust accordingly)
     @Query("SELECT s FROM AssignmentSubmission s WHERE s.assignment.id = :assignmentId")
     List<?> findSubmissionsByAssignmentId(Long assignmentId);
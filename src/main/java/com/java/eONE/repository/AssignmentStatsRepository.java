@@ -0,0 +1,44 @@
+package com.java.eONE.repository;
+
+import com.java.eONE.model.AssignmentStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AssignmentStatsRepository extends JpaRepository<AssignmentStats, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO assignment_stats (assignment_id, submission_count, graded_count, marked_count, " +
+            "marks_sum, last_submission_at, updated_at) VALUES (:assignmentId, 1, 0, 0, 0, :submittedAt, :now) " +
+            "ON CONFLICT (assignment_id) DO UPDATE SET submission_count = assignment_stats.submission_count + 1, " +
+            "last_submission_at = GREATEST(assignment_stats.last_submission_at, EXCLUDED.last_submission_at), " +
+            "updated_at = :now",
+            nativeQuery = true)
+    int recordSubmission(@Param("assignmentId") Long assignmentId,
+                         @Param("submittedAt") LocalDateTime submittedAt,
+                         @Param("now") LocalDateTime now);
+
+    // Deltas, so a regrade moves the totals by the difference from the previous marks
+    @Modifying
+    @Query(value = "INSERT INTO assignment_stats (assignment_id, submission_count, graded_count, marked_count, " +
+            "marks_sum, updated_at) VALUES (:assignmentId, 0, :gradedDelta, :markedDelta, :marksDelta, :now) " +
+            "ON CONFLICT (assignment_id) DO UPDATE SET graded_count = assignment_stats.graded_count + :gradedDelta, " +
+            "marked_count = assignment_stats.marked_count + :markedDelta, " +
+            "marks_sum = assignment_stats.marks_sum + :marksDelta, updated_at = :now",
+            nativeQuery = true)
+    int recordGrading(@Param("assignmentId") Long assignmentId,
+                      @Param("gradedDelta") long gradedDelta,
+                      @Param("markedDelta") long markedDelta,
+                      @Param("marksDelta") long marksDelta,
+                      @Param("now") LocalDateTime now);
+
+    // assignment_stats has no foreign key to assignments, so the row goes with the assignment explicitly
+    @Modifying
+    @Query("DELETE FROM AssignmentStats s WHERE s.assignmentId = :assignmentId")
+    int deleteByAssignmentId(@Param("assignmentId") Long assignmentId);
+}
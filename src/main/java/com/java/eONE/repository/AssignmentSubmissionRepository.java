@@ -2,20 +2,45 @@ package com.java.eONE.repository;
 
 import com.java.eONE.model.AssignmentSubmission;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AssignmentSubmissionRepository extends JpaRepository<AssignmentSubmission, Long> {
+	// Listings build a file URL per row and show the assignment title; fetch both with the submission
+	@EntityGraph(attributePaths = {"assignment", "fileBlob"})
 	List<AssignmentSubmission> findByUserId(Long userId);
 	
 	  @Query("SELECT s FROM AssignmentSubmission s WHERE s.assignment.id = :assignmentId ORDER BY s.createdAt DESC")
 	    List<AssignmentSubmission> findSubmissionsByAssignmentId(@Param("assignmentId") Long assignmentId);
 	  
+	  // Teacher view: student name and file URL per row
+	  @EntityGraph(attributePaths = {"user", "fileBlob"})
 	  List<AssignmentSubmission> findByAssignmentId(Long assignmentId);
 
+	  // Everything the ZIP export needs in one query: student names and blob keys
+	  @Query("SELECT s FROM AssignmentSubmission s JOIN FETCH s.user LEFT JOIN FETCH s.fileBlob " +
+	         "WHERE s.assignment.id = :assignmentId ORDER BY s.id")
+	  List<AssignmentSubmission> findForExport(@Param("assignmentId") Long assignmentId);
+
+	  // Grading reads the previous marks under this lock, so two concurrent grades cannot both count as the first
+	  @Lock(LockModeType.PESSIMISTIC_WRITE)
+	  @Query("SELECT s FROM AssignmentSubmission s WHERE s.id = :id")
+	  Optional<AssignmentSubmission> findByIdForUpdate(@Param("id") Long id);
+
+	  // Submissions received by a teacher since a point in time (digest notifications), minus muted subjects
+	  @Query("SELECT COUNT(s) FROM AssignmentSubmission s WHERE s.assignment.teacher.id = :teacherId AND s.createdAt > :since " +
+	         "AND s.assignment.subject.id NOT IN (SELECT m FROM NotificationPreference p JOIN p.mutedSubjectIds m " +
+	         "WHERE p.userId = :teacherId)")
+	  long countForTeacherSince(@Param("teacherId") Long teacherId, @Param("since") LocalDateTime since);
+
 }
@@ -0,0 +1,26 @@
+package com.java.eONE.repository;
+
+import com.java.eONE.model.BroadcastReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface BroadcastReadStateRepository extends JpaRepository<BroadcastReadState, Long> {
+
+    // Only ever moves the watermark forward
+    @Modifying
+    @Query(value = "INSERT INTO broadcast_read_states (user_id, read_through_id, updated_at) " +
+            "VALUES (:userId, :readThroughId, :now) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "read_through_id = GREATEST(broadcast_read_states.read_through_id, EXCLUDED.read_through_id), " +
+            "updated_at = :now",
+            nativeQuery = true)
+    int advance(@Param("userId") Long userId,
+                @Param("readThroughId") Long readThroughId,
+                @Param("now") LocalDateTime now);
+}
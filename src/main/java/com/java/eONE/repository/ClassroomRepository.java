@@ -1,7 +1,15 @@
 package com.java.eONE.repository;
 
 import com.java.eONE.model.Classroom;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
+
+    // The classroom list shows each class teacher's name
+    @Override
+    @EntityGraph(attributePaths = "teacher")
+    List<Classroom> findAll();
 }
@@ -0,0 +1,56 @@
+package com.java.eONE.repository;
+
+import com.java.eONE.model.NotificationCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, Long> {
+
+    // Held by mark-read, so a notification committed meanwhile is counted after the reset, not lost in it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM NotificationCounter c WHERE c.userId = :userId")
+    Optional<NotificationCounter> findByIdForUpdate(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO notification_counters (user_id, unread_count, updated_at) " +
+            "VALUES (:userId, :delta, :now) " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread_count = notification_counters.unread_count + :delta, " +
+            "updated_at = :now",
+            nativeQuery = true)
+    int increment(@Param("userId") Long userId, @Param("delta") long delta, @Param("now") LocalDateTime now);
+
+    // A classroom broadcast is unread for every approved student of the classroom, minus those
+    // who muted the assignment's subject
+    @Modifying
+    @Query(value = "INSERT INTO notification_counters (user_id, unread_count, updated_at) " +
+            "SELECT u.id, 1, :now FROM users u JOIN roles r ON r.id = u.role_id " +
+            "WHERE u.classroom_id = :classroomId AND u.status = 1 AND r.name = 'Student' " +
+            "AND NOT EXISTS (SELECT 1 FROM assignments a JOIN notification_muted_subjects m ON m.subject_id = a.subject_id " +
+            "WHERE a.id = CAST(:assignmentId AS BIGINT) AND m.user_id = u.id) " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread_count = notification_counters.unread_count + 1, " +
+            "updated_at = :now",
+            nativeQuery = true)
+    int incrementClassroomStudents(@Param("classroomId") Long classroomId,
+                                   @Param("assignmentId") Long assignmentId,
+                                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE notification_counters SET unread_count = GREATEST(unread_count - :delta, 0), " +
+            "updated_at = :now WHERE user_id = :userId",
+            nativeQuery = true)
+    int decrement(@Param("userId") Long userId, @Param("delta") long delta, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE notification_counters SET unread_count = 0, updated_at = :now WHERE user_id = :userId",
+            nativeQuery = true)
+    int reset(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,27 @@
+package com.java.eONE.repository;
+
+import com.java.eONE.model.NotificationPreference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationPreferenceRepository extends JpaRepository<NotificationPreference, Long> {
+
+    @Query("SELECT COUNT(p) > 0 FROM NotificationPreference p JOIN p.mutedSubjectIds s " +
+            "WHERE p.userId = :userId AND s = :subjectId")
+    boolean isSubjectMuted(@Param("userId") Long userId, @Param("subjectId") Long subjectId);
+
+    @Query("SELECT p.submissionDelivery FROM NotificationPreference p WHERE p.userId = :userId")
+    Optional<String> findSubmissionDelivery(@Param("userId") Long userId);
+
+    List<NotificationPreference> findBySubmissionDelivery(String submissionDelivery);
+
+    // Transaction-scoped advisory lock: false when another node already holds it
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryLock(@Param("key") long key);
+}
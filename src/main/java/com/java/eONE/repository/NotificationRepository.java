@@ -1,9 +1,14 @@
 package com.java.eONE.repository;
 
 import com.java.eONE.model.Notification;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -19,4 +24,127 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     
     // For students: get personal notifications (grading notifications)
     List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    // Keyset-paginated feeds, newest first; backed by the (recipient, created_at, id) indexes
+    List<Notification> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Limit limit);
+
+    List<Notification> findByTeacherIdOrderByCreatedAtDescIdDesc(Long teacherId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUserPageBefore(@Param("userId") Long userId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.teacher.id = :teacherId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findTeacherPageBefore(@Param("teacherId") Long teacherId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    // Bulk mark-as-read; the partial indexes on unread rows (schema-postgres.sql) keep these cheap
+    @Modifying
+    @Query("UPDATE Notification n SET n.readAt = :now, n.updatedAt = :now " +
+            "WHERE n.user.id = :userId AND n.readAt IS NULL")
+    int markAllReadForUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.readAt = :now, n.updatedAt = :now " +
+            "WHERE n.teacher.id = :teacherId AND n.readAt IS NULL")
+    int markAllReadForTeacher(@Param("teacherId") Long teacherId, @Param("now") LocalDateTime now);
+
+    // Marks everything up to and including the cursor position (i.e. the cursor row and all older ones)
+    @Modifying
+    @Query("UPDATE Notification n SET n.readAt = :now, n.updatedAt = :now " +
+            "WHERE n.user.id = :userId AND n.readAt IS NULL " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id <= :id))")
+    int markReadUpToForUser(@Param("userId") Long userId,
+                            @Param("createdAt") LocalDateTime createdAt,
+                            @Param("id") Long id,
+                            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.readAt = :now, n.updatedAt = :now " +
+            "WHERE n.teacher.id = :teacherId AND n.readAt IS NULL " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id <= :id))")
+    int markReadUpToForTeacher(@Param("teacherId") Long teacherId,
+                               @Param("createdAt") LocalDateTime createdAt,
+                               @Param("id") Long id,
+                               @Param("now") LocalDateTime now);
+
+    // Student feed: personal rows merged with classroom broadcasts (minus subjects the student muted).
+    // Each branch walks its own (recipient, created_at, id) index and stops after :limit rows before the final merge.
+    @Query(value = "SELECT feed.* FROM (" +
+            "(SELECT n.* FROM notifications n WHERE n.user_id = :userId " +
+            "AND (n.created_at < :createdAt OR (n.created_at = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.created_at DESC, n.id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT n.* FROM notifications n WHERE n.classroom_id = :classroomId " +
+            "AND (n.created_at < :createdAt OR (n.created_at = :createdAt AND n.id < :id)) " +
+            "AND NOT EXISTS (SELECT 1 FROM assignments a JOIN notification_muted_subjects m ON m.subject_id = a.subject_id " +
+            "WHERE a.id = n.assignment_id AND m.user_id = :userId) " +
+            "ORDER BY n.created_at DESC, n.id DESC LIMIT :limit)" +
+            ") feed ORDER BY feed.created_at DESC, feed.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Notification> findStudentFeedBefore(@Param("userId") Long userId,
+                                             @Param("classroomId") Long classroomId,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             @Param("limit") int limit);
+
+    // Long-poll: notifications newer than a cursor, oldest first, so a capped read resumes where it stopped
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+            "AND (n.createdAt > :createdAt OR (n.createdAt = :createdAt AND n.id > :id)) " +
+            "ORDER BY n.createdAt ASC, n.id ASC")
+    List<Notification> findUserPageAfter(@Param("userId") Long userId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.teacher.id = :teacherId " +
+            "AND (n.createdAt > :createdAt OR (n.createdAt = :createdAt AND n.id > :id)) " +
+            "ORDER BY n.createdAt ASC, n.id ASC")
+    List<Notification> findTeacherPageAfter(@Param("teacherId") Long teacherId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Limit limit);
+
+    @Query(value = "SELECT feed.* FROM (" +
+            "(SELECT n.* FROM notifications n WHERE n.user_id = :userId " +
+            "AND (n.created_at > :createdAt OR (n.created_at = :createdAt AND n.id > :id)) " +
+            "ORDER BY n.created_at ASC, n.id ASC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT n.* FROM notifications n WHERE n.classroom_id = :classroomId " +
+            "AND (n.created_at > :createdAt OR (n.created_at = :createdAt AND n.id > :id)) " +
+            "AND NOT EXISTS (SELECT 1 FROM assignments a JOIN notification_muted_subjects m ON m.subject_id = a.subject_id " +
+            "WHERE a.id = n.assignment_id AND m.user_id = :userId) " +
+            "ORDER BY n.created_at ASC, n.id ASC LIMIT :limit)" +
+            ") feed ORDER BY feed.created_at ASC, feed.id ASC LIMIT :limit",
+            nativeQuery = true)
+    List<Notification> findStudentFeedAfter(@Param("userId") Long userId,
+                                            @Param("classroomId") Long classroomId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            @Param("limit") int limit);
+
+    // Broadcasts visible to a student with fromId < id <= toId; unread ones are those above their read watermark
+    @Query(value = "SELECT COUNT(*) FROM notifications n WHERE n.classroom_id = :classroomId " +
+            "AND n.id > :fromId AND n.id <= :toId " +
+            "AND NOT EXISTS (SELECT 1 FROM assignments a JOIN notification_muted_subjects m ON m.subject_id = a.subject_id " +
+            "WHERE a.id = n.assignment_id AND m.user_id = :userId) ",
+            nativeQuery = true)
+    long countVisibleBroadcasts(@Param("classroomId") Long classroomId,
+                                @Param("userId") Long userId,
+                                @Param("fromId") Long fromId,
+                                @Param("toId") Long toId);
+
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.classroom.id = :classroomId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id <= :id))")
+    Long findMaxBroadcastIdUpTo(@Param("classroomId") Long classroomId,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id);
 }
@@ -0,0 +1,48 @@
+package com.java.eONE.repository;
+
+import com.java.eONE.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Pending events that are due and not leased by another dispatcher; SKIP LOCKED lets several nodes drain concurrently
+    @Query(value = "SELECT id FROM outbox_events " +
+            "WHERE processed_at IS NULL AND available_at <= :now " +
+            "AND (locked_until IS NULL OR locked_until < :now) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> findDueIdsForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Remaining due submission events for one (teacher, assignment), so a burst is folded into one notification
+    // even when it is larger than a batch or interleaved with other events
+    @Query(value = "SELECT id FROM outbox_events " +
+            "WHERE event_type = :eventType AND processed_at IS NULL AND available_at <= :now " +
+            "AND (locked_until IS NULL OR locked_until < :now) " +
+            "AND CAST(payload AS jsonb) ->> 'teacher_id' = :teacherId " +
+            "AND CAST(payload AS jsonb) ->> 'assignment_id' = :assignmentId " +
+            "ORDER BY id FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> findDueGroupIdsForUpdate(@Param("eventType") String eventType,
+                                        @Param("teacherId") String teacherId,
+                                        @Param("assignmentId") String assignmentId,
+                                        @Param("now") LocalDateTime now);
+
+    // Dispatch-time re-read: row locks held until the dispatch commits. An event still locked by another
+    // dispatcher (its lease ran out mid-dispatch and it was re-claimed) is skipped, as is one already processed.
+    @Query(value = "SELECT * FROM outbox_events WHERE id IN (:ids) AND processed_at IS NULL " +
+            "ORDER BY id FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> findPendingForUpdate(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.lockedUntil = :lockedUntil WHERE e.id IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("lockedUntil") LocalDateTime lockedUntil);
+}
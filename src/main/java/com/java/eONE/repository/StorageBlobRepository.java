@@ -0,0 +1,48 @@
+package com.java.eONE.repository;
+
+import com.java.eONE.model.StorageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StorageBlobRepository extends JpaRepository<StorageBlob, Long> {
+
+    // Creates the blob row on first upload of this content, otherwise adds a reference; returns the blob id.
+    // Rows from before content_type existed pick it up from the next upload of their content.
+    @Query(value = "INSERT INTO storage_blobs (checksum, byte_size, content_type, ref_count, storage_key, created_at) " +
+            "VALUES (:checksum, :byteSize, :contentType, 1, :storageKey, :now) " +
+            "ON CONFLICT (checksum) DO UPDATE SET ref_count = storage_blobs.ref_count + 1, unreferenced_since = NULL, " +
+            "content_type = COALESCE(storage_blobs.content_type, EXCLUDED.content_type) " +
+            "RETURNING id",
+            nativeQuery = true)
+    Long attach(@Param("checksum") String checksum,
+                @Param("byteSize") long byteSize,
+                @Param("contentType") String contentType,
+                @Param("storageKey") String storageKey,
+                @Param("now") LocalDateTime now);
+
+    // The last release starts the garbage collector's grace period
+    @Modifying
+    @Query(value = "UPDATE storage_blobs SET ref_count = GREATEST(ref_count - 1, 0), " +
+            "unreferenced_since = CASE WHEN ref_count <= 1 THEN CAST(:now AS TIMESTAMP) ELSE NULL END WHERE id = :id",
+            nativeQuery = true)
+    int release(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Download lookup; checksum carries a unique index
+    Optional<StorageBlob> findByChecksum(String checksum);
+
+    @Query("SELECT b.storageKey FROM StorageBlob b WHERE b.id = :id")
+    String findStorageKey(@Param("id") Long id);
+
+    // Points a blob whose stored object went missing back at a fresh copy under its hot key
+    @Modifying
+    @Query(value = "UPDATE storage_blobs SET storage_key = :storageKey, content_encoding = NULL WHERE id = :id",
+            nativeQuery = true)
+    int restore(@Param("id") Long id, @Param("storageKey") String storageKey);
+}
@@ -0,0 +1,34 @@
+package com.java.eONE.repository;
+
+import com.java.eONE.model.StorageBlobVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StorageBlobVariantRepository extends JpaRepository<StorageBlobVariant, Long> {
+
+    Optional<StorageBlobVariant> findByBlobIdAndVariation(Long blobId, String variation);
+
+    List<StorageBlobVariant> findByBlobId(Long blobId);
+
+    // Two renderers finishing the same variant write the same key, so the second insert is simply dropped
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO storage_blob_variants (blob_id, variation, byte_size, storage_key, created_at) " +
+            "VALUES (:blobId, :variation, :byteSize, :storageKey, :now) " +
+            "ON CONFLICT (blob_id, variation) DO NOTHING",
+            nativeQuery = true)
+    int record(@Param("blobId") Long blobId,
+               @Param("variation") String variation,
+               @Param("byteSize") long byteSize,
+               @Param("storageKey") String storageKey,
+               @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,35 @@
+package com.java.eONE.repository;
+
+import com.java.eONE.model.UploadSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Moves the offset only if no other request moved it first; returns 0 when it lost that race
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.uploadOffset = :next, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.uploadOffset = :expected")
+    int advance(@Param("id") String id,
+                @Param("expected") long expected,
+                @Param("next") long next,
+                @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UploadSession s WHERE s.id = :id")
+    Optional<UploadSession> findByIdForUpdate(@Param("id") String id);
+
+    List<UploadSession> findByUpdatedAtBefore(LocalDateTime cutoff);
+}
@@ -5,6 +5,7 @@ import com.java.eONE.model.User;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,12 +13,25 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+	 // Login answers with the role and classroom names
+	 @EntityGraph(attributePaths = {"role", "classroom", "avatarBlob"})
 	 Optional<User> findByEmail(String email);
-	 
+
+	 // Notification feeds branch on the role name and only need the classroom id
+	 @EntityGraph(attributePaths = "role")
+	 Optional<User> findWithRoleById(Long id);
+
+	 // User lists show role and classroom names; fetch them with the users instead of one query each
+	 @Override
+	 @EntityGraph(attributePaths = {"role", "classroom", "avatarBlob"})
+	 List<User> findAll();
+
+	 @EntityGraph(attributePaths = {"role", "classroom", "avatarBlob"})
 	 @Query("SELECT u FROM User u WHERE u.role.id = ?1 AND u.classroom.id = ?2 AND u.status = ?3 AND u.role.name <> 'ADMIN'")
 	    List<User> findByRoleClassroomStatusExcludingAdmin(Long roleId, Long classroomId, Integer status);
 
 	    // Find by role id and status, exclude admins
+	    @EntityGraph(attributePaths = {"role", "classroom", "avatarBlob"})
 	    @Query("SELECT u FROM User u WHERE u.role.id = ?1 AND u.status = ?2 AND u.role.name <> 'ADMIN'")
 	    List<User> findByRoleAndStatusExcludingAdmin(Long roleId, Integer status);
 
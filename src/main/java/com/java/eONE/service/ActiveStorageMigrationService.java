@@ -0,0 +1,283 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.StorageBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports files attached through the old Rails app. Enabled with
+ * {@code storage.active-storage.enabled=true}, it runs on startup and walks
+ * {@code active_storage_attachments} in chunks of {@code storage.active-storage.chunk-size}.
+ * Each Rails blob is read from its Disk-service path ({@code <root>/ab/cd/<key>}), checked
+ * against its MD5, and linked (or copied) into the blob store. The attached assignment,
+ * submission or avatar row is then pointed at it.
+ *
+ * A chunk's blobs are spread over {@code storage.active-storage.threads} workers, and the
+ * checkpoint moves past a chunk once all of its blobs are done, so an interrupted run resumes
+ * at the chunk it was in. Redoing part of a chunk is harmless: a row is only updated while it
+ * has no blob, and the extra reference is released otherwise. Attachments that failed are
+ * recorded and retried first on the next run.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.active-storage.enabled", havingValue = "true")
+public class ActiveStorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveStorageMigrationService.class);
+
+    private static final String CHECKPOINT = "attachments";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // The Java column an ActiveStorage attachment (record_type + name) becomes
+    private record Target(String table, String fileColumn, String blobColumn) {
+    }
+
+    private static final Map<String, Target> TARGETS = Map.of(
+            "Assignment/file", new Target("assignments", "file", "file_blob_id"),
+            "AssignmentSubmission/file", new Target("assignment_submissions", "file", "file_blob_id"),
+            "User/avatar", new Target("users", "avatar", "avatar_blob_id"));
+
+    private record Attachment(long id, String recordType, long recordId, String name,
+                              long blobId, String key, String filename, long byteSize, String checksum) {
+    }
+
+    private static final String ATTACHMENTS =
+            "SELECT a.id, a.record_type, a.record_id, a.name, b.id AS blob_id, b.key, b.filename, " +
+            "b.byte_size, b.checksum FROM active_storage_attachments a " +
+            "JOIN active_storage_blobs b ON b.id = a.blob_id ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobService blobService;
+
+    @Value("${storage.active-storage.root:rails-storage}")
+    private String root;
+
+    @Value("${storage.active-storage.threads:4}")
+    private int threads;
+
+    @Value("${storage.active-storage.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicInteger migrated = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public ActiveStorageMigrationService(JdbcTemplate jdbcTemplate,
+                                         PlatformTransactionManager transactionManager,
+                                         BlobService blobService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.blobService = blobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        long started = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Attachment> retries = jdbcTemplate.query(ATTACHMENTS +
+                    "JOIN active_storage_migration_failures f ON f.attachment_id = a.id ORDER BY a.id", this::attachment);
+            if (!retries.isEmpty()) {
+                log.info("Retrying {} ActiveStorage attachments that failed before", retries.size());
+                runChunk(workers, retries);
+            }
+
+            long after = checkpoint();
+            List<Attachment> chunk;
+            do {
+                chunk = jdbcTemplate.query(ATTACHMENTS + "WHERE a.id > ? ORDER BY a.id LIMIT ?",
+                        this::attachment, after, chunkSize);
+                if (chunk.isEmpty() || !runChunk(workers, chunk)) {
+                    break;
+                }
+                after = chunk.get(chunk.size() - 1).id();
+                saveCheckpoint(after);
+                log.info("ActiveStorage import at attachment {}: {} migrated, {} skipped, {} failed",
+                        after, migrated.get(), skipped.get(), failed.get());
+            } while (chunk.size() == chunkSize);
+        } finally {
+            workers.shutdown();
+        }
+        log.info("ActiveStorage import finished in {} ms: {} migrated, {} skipped, {} failed",
+                System.currentTimeMillis() - started, migrated.get(), skipped.get(), failed.get());
+    }
+
+    private Attachment attachment(ResultSet rs, int row) throws SQLException {
+        return new Attachment(rs.getLong("id"), rs.getString("record_type"), rs.getLong("record_id"),
+                rs.getString("name"), rs.getLong("blob_id"), rs.getString("key"), rs.getString("filename"),
+                rs.getLong("byte_size"), rs.getString("checksum"));
+    }
+
+    // False when interrupted, so the checkpoint does not move past unfinished work
+    private boolean runChunk(ExecutorService workers, List<Attachment> chunk) {
+        // Attachments sharing a Rails blob are done by one worker, so the file is hashed once
+        Map<Long, List<Attachment>> byBlob = new LinkedHashMap<>();
+        for (Attachment attachment : chunk) {
+            byBlob.computeIfAbsent(attachment.blobId(), id -> new ArrayList<>()).add(attachment);
+        }
+        List<Future<?>> tasks = new ArrayList<>();
+        for (List<Attachment> group : byBlob.values()) {
+            tasks.add(workers.submit(() -> migrateBlob(group)));
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                log.error("ActiveStorage import task failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void migrateBlob(List<Attachment> attachments) {
+        Attachment first = attachments.get(0);
+        List<Attachment> pending = new ArrayList<>();
+        for (Attachment attachment : attachments) {
+            if (TARGETS.containsKey(attachment.recordType() + "/" + attachment.name())) {
+                pending.add(attachment);
+            } else {
+                skipped.incrementAndGet();
+                resolved(attachment);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Path source;
+        String sha256;
+        long size;
+        try {
+            source = diskPath(first.key());
+            if (!Files.isRegularFile(source)) {
+                fail(pending, "file not found: " + source);
+                return;
+            }
+            size = Files.size(source);
+            if (size != first.byteSize()) {
+                fail(pending, "size mismatch: " + size + " bytes on disk, " + first.byteSize() + " recorded");
+                return;
+            }
+            sha256 = verifiedSha256(source, first.checksum());
+        } catch (IOException | RuntimeException e) {
+            fail(pending, e.getMessage());
+            return;
+        }
+
+        for (Attachment attachment : pending) {
+            Target target = TARGETS.get(attachment.recordType() + "/" + attachment.name());
+            try {
+                // attach consumes the staged file, so every attachment gets its own link
+                UploadService.StoredFile staged = new UploadService.StoredFile(
+                        blobService.stageLink(source), attachment.filename(), size, sha256);
+                transactionTemplate.executeWithoutResult(status -> {
+                    StorageBlob blob = blobService.attach(staged);
+                    int updated = jdbcTemplate.update(
+                            "UPDATE " + target.table() + " SET " + target.blobColumn() + " = ?, " +
+                            target.fileColumn() + " = ? WHERE id = ? AND " + target.blobColumn() + " IS NULL",
+                            blob.getId(), attachment.filename(), attachment.recordId());
+                    if (updated == 0) {
+                        // Gone, or already holds a file uploaded through the Java app (or by an earlier run)
+                        blobService.release(blob);
+                        skipped.incrementAndGet();
+                    } else {
+                        migrated.incrementAndGet();
+                    }
+                });
+                resolved(attachment);
+            } catch (IOException | RuntimeException e) {
+                fail(List.of(attachment), e.getMessage());
+            }
+        }
+    }
+
+    // Rails' Disk service stores a blob under the first two byte pairs of its key
+    private Path diskPath(String key) {
+        return Paths.get(root, key.substring(0, 2), key.substring(2, 4), key);
+    }
+
+    // Hashes for the blob store, and checks the content against ActiveStorage's base64 MD5 on the way
+    private static String verifiedSha256(Path file, String expectedMd5) throws IOException {
+        MessageDigest sha256 = UploadService.newSha256();
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sha256.update(buffer, 0, read);
+                md5.update(buffer, 0, read);
+            }
+        }
+        if (expectedMd5 != null && !expectedMd5.equals(Base64.getEncoder().encodeToString(md5.digest()))) {
+            throw new IllegalStateException("checksum mismatch for " + file);
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private long checkpoint() {
+        List<Long> saved = jdbcTemplate.queryForList(
+                "SELECT last_attachment_id FROM active_storage_migration_checkpoints WHERE name = ?",
+                Long.class, CHECKPOINT);
+        return saved.isEmpty() ? 0 : saved.get(0);
+    }
+
+    private void saveCheckpoint(long attachmentId) {
+        jdbcTemplate.update("INSERT INTO active_storage_migration_checkpoints (name, last_attachment_id, updated_at) " +
+                "VALUES (?, ?, ?) ON CONFLICT (name) DO UPDATE SET last_attachment_id = EXCLUDED.last_attachment_id, " +
+                "updated_at = EXCLUDED.updated_at", CHECKPOINT, attachmentId, LocalDateTime.now());
+    }
+
+    private void fail(List<Attachment> attachments, String error) {
+        String message = error != null ? error : "unknown error";
+        for (Attachment attachment : attachments) {
+            failed.incrementAndGet();
+            log.warn("Could not import ActiveStorage attachment {} ({} {}): {}", attachment.id(),
+                    attachment.recordType(), attachment.recordId(), message);
+            jdbcTemplate.update("INSERT INTO active_storage_migration_failures (attachment_id, error, failed_at) " +
+                    "VALUES (?, ?, ?) ON CONFLICT (attachment_id) DO UPDATE SET error = EXCLUDED.error, " +
+                    "failed_at = EXCLUDED.failed_at", attachment.id(), message, LocalDateTime.now());
+        }
+    }
+
+    private void resolved(Attachment attachment) {
+        jdbcTemplate.update("DELETE FROM active_storage_migration_failures WHERE attachment_id = ?", attachment.id());
+    }
+}
@@ -0,0 +1,89 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.Assignment;
+import com.java.eONE.model.User;
+import com.java.eONE.repository.AssignmentRepository;
+import com.java.eONE.repository.AssignmentStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+public class AssignmentService {
+
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentStatsRepository assignmentStatsRepository;
+    private final OutboxService outboxService;
+    private final ResumableUploadService resumableUploadService;
+    private final BlobService blobService;
+
+    public AssignmentService(AssignmentRepository assignmentRepository,
+                             AssignmentStatsRepository assignmentStatsRepository, OutboxService outboxService,
+                             ResumableUploadService resumableUploadService, BlobService blobService) {
+        this.assignmentRepository = assignmentRepository;
+        this.assignmentStatsRepository = assignmentStatsRepository;
+        this.outboxService = outboxService;
+        this.resumableUploadService = resumableUploadService;
+        this.blobService = blobService;
+    }
+
+    /**
+     * Saves the assignment and, in the same transaction, queues the classroom
+     * announcement. Students are notified by the outbox dispatcher, not on the request thread.
+     */
+    @Transactional
+    public Assignment createAssignment(Assignment assignment) {
+        Assignment saved = assignmentRepository.save(assignment);
+
+        var classroom = saved.getSubject().getClassroom();
+        if (classroom != null) {
+            User teacher = saved.getTeacher();
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("assignment_id", saved.getId());
+            payload.put("classroom_id", classroom.getId());
+            payload.put("message", "New assignment created by " + (teacher != null ? teacher.getName() : "your teacher") +
+                    ": " + saved.getTitle() + ". Due date: " + saved.getDueDate() +
+                    ". Complete it before the due date!");
+            outboxService.enqueue(OutboxService.ASSIGNMENT_CREATED, payload);
+        }
+        return saved;
+    }
+
+    // Creates the assignment with a staged upload as its file; the blob reference commits or rolls back with the row
+    @Transactional
+    public Assignment createAssignment(Assignment assignment, UploadService.StoredFile file) {
+        assignment.setFile(file.fileName());
+        assignment.setFileBlob(blobService.attach(file));
+        return createAssignment(assignment);
+    }
+
+    // Creates the assignment with a finished resumable upload as its file; the upload is claimed in the same transaction
+    @Transactional
+    public Assignment createAssignment(Assignment assignment, String uploadId) {
+        return createAssignment(assignment, resumableUploadService.claim(uploadId));
+    }
+
+    // Swaps the assignment's file for a staged upload and saves it
+    @Transactional
+    public Assignment replaceFile(Assignment assignment, UploadService.StoredFile file) {
+        assignment.setFileBlob(blobService.replace(assignment.getFileBlob(), file));
+        assignment.setFile(file.fileName());
+        return assignmentRepository.save(assignment);
+    }
+
+    // Swaps the assignment's file for a finished resumable upload and saves it
+    @Transactional
+    public Assignment replaceFile(Assignment assignment, String uploadId) {
+        return replaceFile(assignment, resumableUploadService.claim(uploadId));
+    }
+
+    // Drops the assignment together with its reference to the file blob and its stats row
+    @Transactional
+    public void deleteAssignment(Assignment assignment) {
+        blobService.release(assignment.getFileBlob());
+        assignmentStatsRepository.deleteByAssignmentId(assignment.getId());
+        assignmentRepository.deleteById(assignment.getId());
+    }
+}
@@ -1,5 +1,6 @@
 package com.java.eONE.service;
 
+import com.java.eONE.DTO.AssignmentStatsDTO;
 import com.java.eONE.DTO.ViewSubmittedAssignmentDTO;
 import com.java.eONE.model.AssignmentSubmission;
 
@@ -8,6 +9,13 @@ import java.util.Optional;
 
 public interface AssignmentSubmissionService {
     AssignmentSubmission saveSubmission(AssignmentSubmission submission);
+    AssignmentSubmission createSubmission(AssignmentSubmission submission);
+    // The file's blob reference is taken in the same transaction as the row, so a failed save leaves no reference behind
+    AssignmentSubmission createSubmission(AssignmentSubmission submission, UploadService.StoredFile file);
+    AssignmentSubmission replaceFile(AssignmentSubmission submission, UploadService.StoredFile file);
+    // Resumable uploads: the upload is claimed and attached in the same transaction as the row
+    AssignmentSubmission createSubmission(AssignmentSubmission submission, String uploadId);
+    AssignmentSubmission replaceFile(AssignmentSubmission submission, String uploadId);
     Optional<AssignmentSubmission> getSubmissionById(Long id);
     AssignmentSubmission updateMarksAndGrade(Long id, Integer marks, String grade);
     List<AssignmentSubmission> findByUserId(Long userId);
@@ -15,8 +23,9 @@ public interface AssignmentSubmissionService {
     
     boolean submitMarks(Long submissionId, Integer marks, String grade);
 
-    // Constraints helpers
+    // Constraints helpers, answered from the assignment's stats row
     boolean hasAnySubmission(Long assignmentId);
     boolean hasAnyGradedSubmission(Long assignmentId);
+    AssignmentStatsDTO getStats(Long assignmentId);
 
 }
@@ -0,0 +1,260 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.StorageBlob;
+import com.java.eONE.repository.StorageBlobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Content-addressed file store. Uploads are staged by {@link UploadService}, then handed to
+ * the {@link StorageService} under {@code blobs/ab/cd/<sha256>} (the first two byte pairs of the
+ * hash as directories, so no directory grows past a few hundred entries); if that content is
+ * already stored the staged copy is simply deleted. Each entity pointing at a blob holds one reference.
+ *
+ * Releasing the last reference does not delete the file: a concurrent upload of the same
+ * content may be attaching to it at that moment. Unreferenced blobs are deleted by
+ * {@link StorageGarbageCollector} once a grace period has passed.
+ *
+ * Rarely read blobs are moved by {@link StorageTieringService} to {@code cold/ab/cd/<sha256>}, gzipped
+ * when that pays off; {@link #open(StorageBlob)} undoes the compression, so readers need not care.
+ * Reads served from each tier are counted in the {@code storage.reads} metric.
+ */
+@Service
+public class BlobService {
+
+    public static final String FILES_PATH = "/api/v1/files/";
+    public static final String GZIP = "gzip";
+
+    private static final String COLD_PREFIX = "cold/";
+
+    // Where files uploaded before the blob store live (<millis>_<original name>)
+    public static final Path LEGACY_UPLOADS_DIR = Paths.get("uploads");
+    public static final Path LEGACY_SUBMISSIONS_DIR = Paths.get(System.getProperty("user.dir"), "submissionFile");
+
+    private final StorageBlobRepository blobRepository;
+    private final StorageService storageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Path root;
+
+    public BlobService(StorageBlobRepository blobRepository,
+                       StorageService storageService,
+                       ApplicationEventPublisher eventPublisher,
+                       MeterRegistry meterRegistry,
+                       @Value("${storage.root:storage}") String root) {
+        this.blobRepository = blobRepository;
+        this.storageService = storageService;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.root = Paths.get(root);
+    }
+
+    // Uploads are always staged on local disk, whatever the backend
+    public Path stagingDir() {
+        return root.resolve("tmp");
+    }
+
+    /**
+     * Stages a file that must stay where it is (imports from older storage layouts): a hard link
+     * when it is on the staging filesystem, a copy otherwise. Ready for {@link #attach}.
+     */
+    public Path stageLink(Path source) throws IOException {
+        Path directory = stagingDir();
+        Files.createDirectories(directory);
+        Path staged = directory.resolve(UuidV7.next() + ".upload");
+        try {
+            Files.createLink(staged, source);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(source, staged);
+        }
+        return staged;
+    }
+
+    /**
+     * Moves a staged upload into the store (or drops it as a duplicate) and adds a
+     * reference to the blob holding its content.
+     *
+     * Must run inside the transaction that saves the row pointing at the blob, so the
+     * reference count commits or rolls back together with that row.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StorageBlob attach(UploadService.StoredFile staged) {
+        String key = blobKey(staged.sha256());
+        // Row first: the upsert locks the blob row until commit, so the garbage collector cannot
+        // delete this content between the existence check below and the caller's commit
+        Long id = blobRepository.attach(staged.sha256(), staged.size(), contentType(staged.fileName()).toString(),
+                key, LocalDateTime.now());
+        // Usually the hot key, but known content may have moved to the cold tier since
+        String stored = blobRepository.findStorageKey(id);
+        try {
+            if (storageService.exists(stored)) {
+                Files.deleteIfExists(staged.path());
+            } else {
+                // Same content under the same key, so losing a race to another upload is harmless
+                storageService.put(key, staged.path());
+                if (!key.equals(stored)) {
+                    blobRepository.restore(id, key);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store blob " + staged.sha256(), e);
+        }
+        eventPublisher.publishEvent(new BlobStoredEvent(id, staged.fileName()));
+        return blobRepository.getReferenceById(id);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(StorageBlob blob) {
+        if (blob != null) {
+            blobRepository.release(blob.getId(), LocalDateTime.now());
+        }
+    }
+
+    // Points an entity at a new blob: the caller stores the returned blob, the old one loses a reference
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StorageBlob replace(StorageBlob previous, UploadService.StoredFile staged) {
+        StorageBlob blob = attach(staged);
+        release(previous);
+        return blob;
+    }
+
+    public static String blobKey(String sha256) {
+        return "blobs/" + shard(sha256) + sha256;
+    }
+
+    // Resized renditions of a blob, see ImageVariantService
+    public static String variantKey(String sha256, String variation) {
+        return "variants/" + shard(sha256) + sha256 + "/" + variation + ".jpg";
+    }
+
+    // Cold-tier key; gzipped objects carry a .gz suffix so both encodings of one content can coexist
+    public static String coldKey(String sha256, boolean gzipped) {
+        return COLD_PREFIX + shard(sha256) + sha256 + (gzipped ? ".gz" : "");
+    }
+
+    public static boolean isCold(String storageKey) {
+        return storageKey.startsWith(COLD_PREFIX);
+    }
+
+    private static String shard(String sha256) {
+        return sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/";
+    }
+
+    // Relative download path, e.g. /api/v1/files/9f86d08.../notes.pdf. Downloads are not authenticated, so the
+    // path carries the content's SHA-256 rather than the serial id: it cannot be enumerated or derived without
+    // already holding the file.
+    public static String downloadPath(StorageBlob blob, String fileName) {
+        return downloadPath(blob.getChecksum(), fileName);
+    }
+
+    public static String downloadPath(String checksum, String fileName) {
+        String name = fileName != null && !fileName.isEmpty() ? fileName : "file";
+        return FILES_PATH + checksum + "/" + UriUtils.encodePathSegment(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Absolute URL for a stored file: the app's blob download path, or {@code legacyPrefix + fileName}
+     * for rows uploaded before the blob store existed. Responses embed this stable path rather than a
+     * presigned object-store link, which would expire in pages left open or cached; the download
+     * endpoint presigns (and redirects) only when the link is followed.
+     */
+    public String fileUrl(StorageBlob blob, String fileName, String legacyPrefix) {
+        return fileUrl(currentBaseUrl(), blob != null ? blob.getChecksum() : null, fileName, legacyPrefix);
+    }
+
+    /**
+     * The same URL for rows that carry the blob checksum instead of the entity (list projections).
+     * {@code baseUrl} is {@link #currentBaseUrl()}, taken once per request rather than per row.
+     */
+    public String fileUrl(String baseUrl, String blobChecksum, String fileName, String legacyPrefix) {
+        if (blobChecksum != null) {
+            return baseUrl + downloadPath(blobChecksum, fileName);
+        }
+        if (fileName == null || fileName.isEmpty()) {
+            return null;
+        }
+        return baseUrl + legacyPrefix + UriUtils.encodePath(fileName, StandardCharsets.UTF_8);
+    }
+
+    // Scheme, host and context path of the current request
+    public static String currentBaseUrl() {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+    }
+
+    public Optional<URI> directDownloadUrl(String storageKey, String fileName, String contentType) {
+        return storageService.directDownloadUrl(storageKey, fileName, contentType);
+    }
+
+    public Optional<Path> localPath(StorageBlob blob) {
+        return localPath(blob.getStorageKey());
+    }
+
+    public Optional<Path> localPath(String storageKey) {
+        return storageService.localPath(storageKey);
+    }
+
+    public InputStream open(String storageKey) throws IOException {
+        return storageService.open(storageKey);
+    }
+
+    // The blob's original bytes, decompressed if it is stored gzipped
+    public InputStream open(StorageBlob blob) throws IOException {
+        return open(blob.getStorageKey(), blob.getContentEncoding());
+    }
+
+    public InputStream open(String storageKey, String contentEncoding) throws IOException {
+        InputStream in = storageService.open(storageKey);
+        if (!GZIP.equals(contentEncoding)) {
+            return in;
+        }
+        try {
+            return new GZIPInputStream(in, 64 * 1024);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // One file served to a client, counted by the tier it came from
+    public void countRead(String storageKey) {
+        meterRegistry.counter("storage.reads", "tier", isCold(storageKey) ? "cold" : "hot").increment();
+    }
+
+    // Legacy files are stored as <millis>_<original name>
+    public static String legacyDisplayName(String storedName) {
+        int separator = storedName.indexOf('_');
+        return separator > 0 && storedName.substring(0, separator).chars().allMatch(Character::isDigit)
+                ? storedName.substring(separator + 1)
+                : storedName;
+    }
+
+    // The type recorded when the content was first stored; blobs from before that column use the name
+    public static String contentType(StorageBlob blob, String fileName) {
+        return blob.getContentType() != null ? blob.getContentType() : contentType(fileName).toString();
+    }
+
+    public static MediaType contentType(String fileName) {
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+}
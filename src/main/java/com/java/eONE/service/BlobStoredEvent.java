@@ -0,0 +1,8 @@
+package com.java.eONE.service;
+
+/**
+ * Published when an upload is attached to a blob; {@code fileName} is the name it was uploaded
+ * under. Listeners run after commit, once the blob row is visible to other transactions.
+ */
+public record BlobStoredEvent(Long blobId, String fileName) {
+}
@@ -0,0 +1,227 @@
+package com.java.eONE.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a file to the response with strong-ETag revalidation and single-range support.
+ *
+ * Stored files never change under a given name (blob keys are content hashes, legacy names are
+ * timestamped), so responses are marked immutable and a matching If-None-Match gets a bodiless
+ * 304. Bodies are handed to Tomcat's sendfile when the connector offers it, so the kernel copies
+ * file pages straight to the socket; otherwise they are streamed with FileChannel.transferTo.
+ * Content that is not a plain file on disk (gzipped cold-tier blobs) is streamed whole instead.
+ *
+ * Size, ETag and content type come from the caller (for blobs: their row), so nothing is
+ * stat'ed up front; a file that turns out to be missing is answered with 404 when the body is
+ * opened (under sendfile, Tomcat drops the connection instead).
+ */
+@Service
+public class FileDownloadService {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Content never changes under a URL, but blobs are submissions and avatars: browsers may keep them, shared caches may not
+    private static final String IMMUTABLE = "private, max-age=31536000, immutable";
+
+    // Opened only when a body is actually sent
+    @FunctionalInterface
+    public interface Body {
+        InputStream open() throws IOException;
+    }
+
+    // Inclusive byte range
+    private record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    public void serve(Path path, long size, String etag, String fileName, String contentType,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteRange range;
+        try {
+            range = requestedRange(request, etag, size);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        describe(fileName, contentType, response);
+
+        ByteRange body = range != null ? range : new ByteRange(0, size - 1);
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + size);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        response.setContentLengthLong(Math.max(body.length(), 0));
+
+        if ("HEAD".equals(request.getMethod()) || size == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file after the servlet returns; end is exclusive
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, body.start());
+            request.setAttribute(SENDFILE_END, body.end() + 1);
+            return;
+        }
+
+        FileChannel opened;
+        try {
+            opened = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            notFound(response);
+            return;
+        }
+        try (FileChannel file = opened) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = body.start();
+            long remaining = body.length();
+            while (remaining > 0) {
+                long sent = file.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Sends decoded bytes of a known size, e.g. a decompressed cold-tier blob. Revalidation works
+     * as above, but ranges are not offered: seeking would mean decompressing up to the offset.
+     */
+    public void serve(Body body, long size, String etag, String fileName, String contentType,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        describe(fileName, contentType, response);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentLengthLong(size);
+        if ("HEAD".equals(request.getMethod()) || size == 0) {
+            return;
+        }
+        InputStream opened;
+        try {
+            opened = body.open();
+        } catch (NoSuchFileException e) {
+            notFound(response);
+            return;
+        }
+        try (InputStream in = opened) {
+            in.transferTo(response.getOutputStream());
+        }
+    }
+
+    private static void describe(String fileName, String contentType, HttpServletResponse response) {
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.inline().filename(fileName, StandardCharsets.UTF_8).build().toString());
+    }
+
+    // Nothing has been written yet, so the headers set so far can still be dropped
+    private static void notFound(HttpServletResponse response) throws IOException {
+        response.reset();
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The single range asked for, or null to send the whole file: no Range header, an If-Range
+     * that no longer matches, or a multi-range request (answered in full, which RFC 9110 allows).
+     * Throws IllegalArgumentException when the range lies outside the file.
+     */
+    private static ByteRange requestedRange(HttpServletRequest request, String etag, long size) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        if (spec.contains(",")) {
+            return null;
+        }
+
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    throw new IllegalArgumentException("Empty suffix range");
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start >= size || start > end) {
+                throw new IllegalArgumentException("Range not satisfiable");
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
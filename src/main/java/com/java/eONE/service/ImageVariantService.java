@@ -0,0 +1,364 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.StorageBlob;
+import com.java.eONE.model.StorageBlobVariant;
+import com.java.eONE.repository.StorageBlobRepository;
+import com.java.eONE.repository.StorageBlobVariantRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Resized JPEG renditions of image blobs, so list screens load a few kilobytes per avatar
+ * instead of the full camera original.
+ *
+ * Variants are rendered off the request thread once an image upload commits, and on demand
+ * for images stored before variants existed. The original is decoded once per blob with
+ * source subsampling, so a 12 MP photo is never fully expanded in memory.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1_MARKER = 0xE1;
+    private static final float JPEG_QUALITY = 0.82f;
+    // Remembered non-images; the least recently requested fall out and are simply probed again
+    private static final int MAX_UNRENDERABLE = 10_000;
+
+    // Longest edge in pixels; thumb covers 64px avatars on 2x screens
+    public enum Variant {
+        THUMB("thumb", 128),
+        MEDIUM("medium", 512);
+
+        private final String key;
+        private final int box;
+
+        Variant(String key, int box) {
+            this.key = key;
+            this.box = box;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public static Optional<Variant> parse(String value) {
+            return Arrays.stream(values()).filter(v -> v.key.equalsIgnoreCase(value)).findFirst();
+        }
+    }
+
+    private final StorageBlobRepository blobRepository;
+    private final StorageBlobVariantRepository variantRepository;
+    private final StorageService storageService;
+    private final BlobService blobService;
+    private final ExecutorService renderers;
+    private final long maxSourcePixels;
+
+    // Blobs being rendered now, and blobs that turned out not to be decodable images (LRU, guarded by itself)
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Boolean> unrenderable = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_UNRENDERABLE;
+        }
+    };
+
+    public ImageVariantService(StorageBlobRepository blobRepository,
+                               StorageBlobVariantRepository variantRepository,
+                               StorageService storageService,
+                               BlobService blobService,
+                               @Value("${images.variants.threads:2}") int threads,
+                               @Value("${images.variants.max-source-pixels:50000000}") long maxSourcePixels) {
+        this.blobRepository = blobRepository;
+        this.variantRepository = variantRepository;
+        this.storageService = storageService;
+        this.blobService = blobService;
+        this.renderers = Executors.newFixedThreadPool(threads);
+        this.maxSourcePixels = maxSourcePixels;
+        // Decode through memory rather than ImageIO's temp-file cache
+        ImageIO.setUseCache(false);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBlobStored(BlobStoredEvent event) {
+        if (isImage(BlobService.contentType(event.fileName()).toString())) {
+            schedule(event.blobId());
+        }
+    }
+
+    public Optional<StorageBlobVariant> find(StorageBlob blob, Variant variant) {
+        return variantRepository.findByBlobIdAndVariation(blob.getId(), variant.key());
+    }
+
+    // Queues rendering of the blob's missing variants unless it is already queued or known not to be an image
+    public void requestVariants(StorageBlob blob, String fileName) {
+        if (isImage(BlobService.contentType(blob, fileName))) {
+            schedule(blob.getId());
+        }
+    }
+
+    // Variants are always JPEG, so the download name gets a .jpg extension
+    public static String variantFileName(String fileName, Variant variant) {
+        String base = fileName != null && !fileName.isEmpty() ? fileName : "image";
+        int dot = base.lastIndexOf('.');
+        return (dot > 0 ? base.substring(0, dot) : base) + "-" + variant.key() + ".jpg";
+    }
+
+    private static boolean isImage(String type) {
+        return type.startsWith("image/") && ImageIO.getImageReadersByMIMEType(type).hasNext();
+    }
+
+    private void schedule(Long blobId) {
+        synchronized (unrenderable) {
+            if (unrenderable.get(blobId) != null) {
+                return;
+            }
+        }
+        if (!inFlight.add(blobId)) {
+            return;
+        }
+        renderers.execute(() -> {
+            try {
+                render(blobId);
+            } catch (Exception e) {
+                // Storage or database trouble is usually temporary: the next request tries again
+                log.warn("Could not render variants for blob {}: {}", blobId, e.getMessage());
+            } finally {
+                inFlight.remove(blobId);
+            }
+        });
+    }
+
+    private void render(Long blobId) throws IOException {
+        StorageBlob blob = blobRepository.findById(blobId).orElse(null);
+        if (blob == null) {
+            return;
+        }
+        Variant[] missing = Arrays.stream(Variant.values())
+                .filter(v -> find(blob, v).isEmpty())
+                .toArray(Variant[]::new);
+        if (missing.length == 0) {
+            return;
+        }
+
+        int largestBox = Arrays.stream(missing).mapToInt(v -> v.box).max().getAsInt();
+        BufferedImage source = decode(blob, largestBox);
+        if (source == null) {
+            synchronized (unrenderable) {
+                unrenderable.put(blobId, Boolean.TRUE);
+            }
+            return;
+        }
+
+        for (Variant variant : missing) {
+            BufferedImage scaled = scale(source, variant.box);
+            String key = BlobService.variantKey(blob.getChecksum(), variant.key());
+            Path staged = Files.createTempFile(Files.createDirectories(blobService.stagingDir()), "variant-", ".jpg");
+            try {
+                writeJpeg(scaled, staged);
+                long size = Files.size(staged);
+                storageService.put(key, staged);
+                variantRepository.record(blobId, variant.key(), size, key, LocalDateTime.now());
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+        }
+    }
+
+    /**
+     * Decodes the blob subsampled so its longest edge is still at least twice {@code box},
+     * and applies the EXIF orientation of camera JPEGs. Null when the image can never be rendered:
+     * no reader understands the bytes, or it is over the pixel limit.
+     */
+    private BufferedImage decode(StorageBlob blob, int box) throws IOException {
+        Optional<Path> local = blob.getContentEncoding() == null
+                ? storageService.localPath(blob.getStorageKey()) : Optional.empty();
+        try (InputStream remote = local.isPresent() ? null : blobService.open(blob);
+             ImageInputStream input = ImageIO.createImageInputStream(
+                     local.isPresent() ? local.get().toFile() : remote)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, false);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.warn("Not rendering variants for blob {}: {}x{} is over the pixel limit",
+                            blob.getId(), width, height);
+                    return null;
+                }
+                double fit = Math.min(1.0, (double) box / Math.max(width, height));
+                int step = (int) Math.max(1, Math.floor(1 / (2 * fit)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return orient(image, exifOrientation(reader.getImageMetadata(0)));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves with bilinear filtering until close to the target, then does one last bilinear step
+    private static BufferedImage scale(BufferedImage source, int box) {
+        double fit = Math.min(1.0, (double) box / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * fit));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * fit));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Also flattens onto white: JPEG has no alpha channel
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // Rotations only (EXIF 3, 6, 8); mirrored orientations are left as decoded
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        int quarterTurns = switch (orientation) {
+            case 6 -> 1;
+            case 3 -> 2;
+            case 8 -> 3;
+            default -> 0;
+        };
+        if (quarterTurns == 0) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = quarterTurns % 2 == 1;
+        BufferedImage rotated = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        AffineTransform transform = new AffineTransform();
+        transform.translate(rotated.getWidth() / 2.0, rotated.getHeight() / 2.0);
+        transform.quadrantRotate(quarterTurns);
+        transform.translate(-w / 2.0, -h / 2.0);
+        Graphics2D g = rotated.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+
+    // Orientation tag (0x0112) of IFD0 in the JPEG's Exif APP1 segment; 1 (upright) when absent
+    private static int exifOrientation(IIOMetadata metadata) {
+        if (metadata == null || !Arrays.asList(metadata.getMetadataFormatNames()).contains(JPEG_METADATA_FORMAT)) {
+            return 1;
+        }
+        Node markers = ((IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT))
+                .getElementsByTagName("markerSequence").item(0);
+        for (Node node = markers != null ? markers.getFirstChild() : null; node != null; node = node.getNextSibling()) {
+            if (node instanceof IIOMetadataNode marker
+                    && "unknown".equals(marker.getNodeName())
+                    && String.valueOf(APP1_MARKER).equals(marker.getAttribute("MarkerTag"))
+                    && marker.getUserObject() instanceof byte[] data) {
+                return exifOrientation(data);
+            }
+        }
+        return 1;
+    }
+
+    private static int exifOrientation(byte[] app1) {
+        if (app1.length < 14 || !"Exif".equals(new String(app1, 0, 4, StandardCharsets.US_ASCII))) {
+            return 1;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        try {
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                    return tiff.getShort(entry + 8) & 0xFFFF;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated or malformed Exif: treat as upright
+        }
+        return 1;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderers.shutdown();
+    }
+}
@@ -0,0 +1,14 @@
+package com.java.eONE.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when notification rows are written. Exactly one of {@code recipientId}
+ * or {@code classroomId} is set: a single recipient or every student of a classroom.
+ */
+public record NotificationCreatedEvent(Long recipientId,
+                                       Long classroomId,
+                                       String message,
+                                       LocalDateTime createdAt,
+                                       String type) {
+}
@@ -0,0 +1,67 @@
+package com.java.eONE.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Position in a notification feed ordered by (created_at DESC, id DESC).
+ * Serialized as an opaque URL-safe token so clients never depend on its shape.
+ *
+ * Cursors handed out by the long poll also carry {@code recentIds}: the notifications already
+ * delivered within the overlap window that is re-read behind the position on the next poll.
+ */
+public record NotificationCursor(LocalDateTime createdAt, Long id, List<Long> recentIds) {
+
+    // Orders cursors like the feed itself, oldest first
+    public static final Comparator<NotificationCursor> ORDER =
+            Comparator.comparing(NotificationCursor::createdAt).thenComparing(NotificationCursor::id);
+
+    // Sorts after every real notification; "before HEAD" means the whole feed
+    public static final NotificationCursor HEAD =
+            new NotificationCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    // Sorts before every real notification; "after ORIGIN" also means the whole feed
+    public static final NotificationCursor ORIGIN =
+            new NotificationCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    public NotificationCursor {
+        recentIds = recentIds == null ? List.of() : List.copyOf(recentIds);
+    }
+
+    public NotificationCursor(LocalDateTime createdAt, Long id) {
+        this(createdAt, id, List.of());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        if (!recentIds.isEmpty()) {
+            raw += "|" + recentIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NotificationCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Invalid notification cursor");
+            }
+            List<Long> recentIds = new ArrayList<>();
+            if (parts.length == 3 && !parts[2].isEmpty()) {
+                for (String recentId : parts[2].split(",")) {
+                    recentIds.add(Long.parseLong(recentId));
+                }
+            }
+            return new NotificationCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]), recentIds);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid notification cursor", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.Notification;
+import com.java.eONE.repository.AssignmentRepository;
+import com.java.eONE.repository.ClassroomRepository;
+import com.java.eONE.repository.NotificationCounterRepository;
+import com.java.eONE.repository.NotificationRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+public class NotificationFanoutService {
+
+    private final NotificationRepository notificationRepository;
+    private final ClassroomRepository classroomRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final NotificationCounterRepository notificationCounterRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationPayloadCache payloadCache;
+
+    public NotificationFanoutService(NotificationRepository notificationRepository,
+                                     ClassroomRepository classroomRepository,
+                                     AssignmentRepository assignmentRepository,
+                                     NotificationCounterRepository notificationCounterRepository,
+                                     ApplicationEventPublisher eventPublisher,
+                                     NotificationPayloadCache payloadCache) {
+        this.notificationRepository = notificationRepository;
+        this.classroomRepository = classroomRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.notificationCounterRepository = notificationCounterRepository;
+        this.eventPublisher = eventPublisher;
+        this.payloadCache = payloadCache;
+    }
+
+    /**
+     * Announces something to every student of a classroom by writing a single
+     * broadcast row. Student feeds merge broadcasts in at read time and track
+     * read state per user, so storage and write cost no longer depend on class size.
+     * Only the students' unread counters are touched per student, in one statement.
+     */
+    @Transactional
+    public Notification notifyClassroomStudents(Long classroomId, Long assignmentId, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        Notification broadcast = new Notification();
+        broadcast.setClassroom(classroomRepository.getReferenceById(classroomId));
+        if (assignmentId != null) {
+            broadcast.setAssignment(assignmentRepository.getReferenceById(assignmentId));
+        }
+        broadcast.setMessage(message);
+        broadcast.setCreatedAt(now);
+        broadcast.setUpdatedAt(now);
+        Notification saved = notificationRepository.save(broadcast);
+        notificationCounterRepository.incrementClassroomStudents(classroomId, assignmentId, now);
+        payloadCache.remember(saved);
+
+        eventPublisher.publishEvent(new NotificationCreatedEvent(null, classroomId, message, saved.getCreatedAt(),
+                assignmentId != null ? "assignment" : "general"));
+        return saved;
+    }
+}
@@ -0,0 +1,230 @@
+package com.java.eONE.service;
+
+import com.java.eONE.DTO.NotificationMessageDTO;
+import com.java.eONE.model.User;
+import com.java.eONE.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long polling for clients that cannot keep a WebSocket open.
+ *
+ * A poll is parked as a {@link DeferredResult}, so it holds no servlet thread while it waits.
+ * Parked polls are indexed by recipient and by classroom; when a notification commits, only the
+ * polls it could concern are re-checked against the database and answered.
+ *
+ * Answers are read oldest first from the cursor and capped at the page size; the returned cursor
+ * is the last row delivered and {@code has_more} tells the client to poll again straight away.
+ * {@code created_at} is stamped before commit, so a row can become visible after a later-stamped
+ * row was already delivered. Each check therefore re-reads {@code overlap-seconds} behind the
+ * cursor and skips the ids the cursor records as delivered in that window.
+ *
+ * Commits on this node wake polls through {@link #onNotificationCreated}; commits on other nodes
+ * arrive through {@link NotificationSignalListener}.
+ */
+@Service
+public class NotificationLongPollService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationLongPollService.class);
+
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final ExecutorService wakeups;
+    private final Duration overlap;
+    private final Map<String, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    public NotificationLongPollService(UserRepository userRepository,
+                                       NotificationService notificationService,
+                                       @Value("${notifications.long-poll.wakeup-threads:2}") int wakeupThreads,
+                                       @Value("${notifications.long-poll.overlap-seconds:5}") long overlapSeconds) {
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.wakeups = Executors.newFixedThreadPool(wakeupThreads);
+        this.overlap = Duration.ofSeconds(Math.max(overlapSeconds, 0));
+    }
+
+    private record Waiter(User user, Long classroomId, NotificationCursor since, int limit,
+                          DeferredResult<ResponseEntity<?>> result) {
+    }
+
+    public DeferredResult<ResponseEntity<?>> poll(Long userId, NotificationCursor since, int limit, long timeoutMillis) {
+        DeferredResult<ResponseEntity<?>> result =
+                new DeferredResult<>(timeoutMillis, ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+
+        User user = userRepository.findWithRoleById(userId).orElse(null);
+        if (user == null) {
+            result.setResult(ResponseEntity.status(404).body(Map.of("error", "User not found")));
+            return result;
+        }
+
+        Waiter waiter = new Waiter(user, notificationService.getBroadcastClassroomId(user), since, limit, result);
+        // Register before the first check so a notification committed in between still wakes this poll
+        register(waiter);
+        result.onCompletion(() -> unregister(waiter));
+        check(waiter);
+        return result;
+    }
+
+    // Fires only after the notification row is committed, so the re-check is guaranteed to see it
+    @TransactionalEventListener
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        wake(event.recipientId(), event.classroomId());
+    }
+
+    // Re-checks the polls parked for a recipient or, when recipientId is null, for a classroom
+    void wake(Long recipientId, Long classroomId) {
+        String key = recipientId != null ? userKey(recipientId)
+                : classroomId != null ? classroomKey(classroomId) : null;
+        Set<Waiter> targets = key != null ? waiters.get(key) : null;
+        if (targets == null) {
+            return;
+        }
+        for (Waiter waiter : targets) {
+            wakeups.execute(() -> {
+                try {
+                    check(waiter);
+                } catch (RuntimeException e) {
+                    // Leave the poll parked; it will be answered by a later event or its timeout
+                    log.warn("Long-poll re-check for user {} failed: {}", waiter.user().getId(), e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void check(Waiter waiter) {
+        if (waiter.result().isSetOrExpired()) {
+            return;
+        }
+        NotificationCursor since = waiter.since();
+        if (since == null) {
+            List<NotificationMessageDTO> latest = notificationService.getLatestNotifications(waiter.user(), waiter.limit());
+            if (!latest.isEmpty()) {
+                answer(waiter, latest, advance(NotificationCursor.ORIGIN, latest, latest, true), false);
+            }
+            return;
+        }
+
+        Set<Long> delivered = new HashSet<>(since.recentIds());
+        int requested = waiter.limit() + delivered.size() + 1;
+        List<NotificationMessageDTO> window = notificationService.getNotificationsSince(waiter.user(),
+                new NotificationCursor(since.createdAt().minus(overlap), 0L), requested);
+        // A broadcast for a muted subject wakes the poll but yields nothing; it then keeps waiting
+        List<NotificationMessageDTO> fresh = window.stream().filter(n -> !delivered.contains(n.getId())).toList();
+        if (fresh.isEmpty()) {
+            return;
+        }
+        boolean hasMore = fresh.size() > waiter.limit();
+        if (hasMore) {
+            fresh = fresh.subList(0, waiter.limit());
+        }
+        answer(waiter, fresh, advance(since, window, fresh, window.size() < requested), hasMore);
+    }
+
+    private void answer(Waiter waiter, List<NotificationMessageDTO> notifications, NotificationCursor cursor,
+                        boolean hasMore) {
+        waiter.result().setResult(ResponseEntity.ok(Map.of(
+                "notifications", notifications,
+                "latest_cursor", cursor.encode(),
+                "has_more", hasMore
+        )));
+    }
+
+    /**
+     * Cursor after delivering {@code delivered}: the furthest position reached, plus every id delivered
+     * within the overlap window behind it. {@code complete} means {@code window} holds every row from the
+     * window start onward, so remembered ids missing from it no longer exist and are dropped.
+     */
+    private NotificationCursor advance(NotificationCursor since, List<NotificationMessageDTO> window,
+                                       List<NotificationMessageDTO> delivered, boolean complete) {
+        NotificationCursor position = since;
+        for (NotificationMessageDTO n : delivered) {
+            NotificationCursor reached = new NotificationCursor(n.getCreatedAt(), n.getId());
+            if (NotificationCursor.ORDER.compare(reached, position) > 0) {
+                position = reached;
+            }
+        }
+        LocalDateTime horizon = position.createdAt().minus(overlap);
+
+        Set<Long> present = new HashSet<>();
+        Set<Long> expired = new HashSet<>();
+        for (NotificationMessageDTO n : window) {
+            present.add(n.getId());
+            if (n.getCreatedAt().isBefore(horizon)) {
+                expired.add(n.getId());
+            }
+        }
+        Set<Long> recent = new LinkedHashSet<>();
+        for (Long id : since.recentIds()) {
+            if (!expired.contains(id) && (!complete || present.contains(id))) {
+                recent.add(id);
+            }
+        }
+        for (NotificationMessageDTO n : delivered) {
+            if (!n.getCreatedAt().isBefore(horizon)) {
+                recent.add(n.getId());
+            }
+        }
+        return new NotificationCursor(position.createdAt(), position.id(), List.copyOf(recent));
+    }
+
+    private void register(Waiter waiter) {
+        add(userKey(waiter.user().getId()), waiter);
+        if (waiter.classroomId() != null) {
+            add(classroomKey(waiter.classroomId()), waiter);
+        }
+    }
+
+    private void unregister(Waiter waiter) {
+        remove(userKey(waiter.user().getId()), waiter);
+        if (waiter.classroomId() != null) {
+            remove(classroomKey(waiter.classroomId()), waiter);
+        }
+    }
+
+    // Both add and remove go through compute so an emptied set is never resurrected after removal
+    private void add(String key, Waiter waiter) {
+        waiters.compute(key, (k, set) -> {
+            Set<Waiter> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(waiter);
+            return target;
+        });
+    }
+
+    private void remove(String key, Waiter waiter) {
+        waiters.computeIfPresent(key, (k, set) -> {
+            set.remove(waiter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static String userKey(Long userId) {
+        return "user:" + userId;
+    }
+
+    private static String classroomKey(Long classroomId) {
+        return "classroom:" + classroomId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wakeups.shutdown();
+    }
+}
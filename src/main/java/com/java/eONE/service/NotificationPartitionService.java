@@ -0,0 +1,252 @@
+package com.java.eONE.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps {@code notifications} range-partitioned by month on {@code created_at}.
+ *
+ * A plain (Hibernate-created) table is converted in place on startup, but only when
+ * {@code notifications.partitions.convert=true}: the rename and copy hold an exclusive lock on
+ * the table for the whole run, so it is meant for a maintenance boot. A nightly job then
+ * pre-creates upcoming months, detaches months older than the retention window into
+ * {@code notifications_archive} and drops archive months past their own window. Detach,
+ * attach and drop are catalog operations, so retention never rewrites or deletes rows
+ * one by one. Feed queries ordered by created_at DESC with a LIMIT only read the newest
+ * partitions. Unread notifications in a month that leaves the live table are taken off the
+ * unread counters first, so badges never count rows nobody can see any more.
+ */
+@Service
+public class NotificationPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationPartitionService.class);
+
+    private static final String TABLE = "notifications";
+    private static final String ARCHIVE_TABLE = "notifications_archive";
+    private static final String ID_SEQUENCE = "notifications_partitioned_id_seq";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("uuuu_MM");
+    // Serializes partition maintenance across application nodes
+    private static final long ADVISORY_LOCK_KEY = 7_310_001L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notifications.retention.months:12}")
+    private int retentionMonths;
+
+    @Value("${notifications.archive.months:24}")
+    private int archiveMonths;
+
+    @Value("${notifications.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${notifications.partitions.convert:false}")
+    private boolean convert;
+
+    public NotificationPartitionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                if (!isPartitioned(TABLE)) {
+                    if (!convert) {
+                        log.warn("{} is not partitioned; retention is off until it is converted with "
+                                + "notifications.partitions.convert=true", TABLE);
+                        return;
+                    }
+                    convertToPartitioned();
+                }
+                ensureUpcomingPartitions();
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not prepare notification partitions", e);
+        }
+    }
+
+    @Scheduled(cron = "${notifications.retention.cron:0 30 2 * * *}")
+    public void runRetention() {
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            if (!isPartitioned(TABLE)) {
+                return;
+            }
+            ensureUpcomingPartitions();
+            archiveExpiredPartitions();
+            dropExpiredArchivePartitions();
+        });
+    }
+
+    private void convertToPartitioned() {
+        log.info("Converting {} to a monthly range-partitioned table", TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + TABLE + "_legacy");
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + TABLE + "_legacy INCLUDING DEFAULTS) " +
+                "PARTITION BY RANGE (created_at)");
+
+        // Identity columns do not carry over to the partitioned parent; continue ids from a plain sequence
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + ID_SEQUENCE);
+        jdbcTemplate.execute("SELECT setval('" + ID_SEQUENCE + "', COALESCE((SELECT MAX(id) FROM " + TABLE +
+                "_legacy), 0) + 1, false)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN id SET DEFAULT nextval('" + ID_SEQUENCE + "')");
+        jdbcTemplate.execute("ALTER SEQUENCE " + ID_SEQUENCE + " OWNED BY " + TABLE + ".id");
+        // The partition key has to be part of the primary key
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (id, created_at)");
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + "_default PARTITION OF " + TABLE + " DEFAULT");
+        LocalDateTime oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at) FROM " + TABLE + "_legacy", LocalDateTime.class);
+        YearMonth month = oldest != null ? YearMonth.from(oldest) : YearMonth.now();
+        for (; !month.isAfter(YearMonth.now()); month = month.plusMonths(1)) {
+            createPartition(TABLE, month);
+        }
+
+        jdbcTemplate.execute("INSERT INTO " + TABLE + " SELECT * FROM " + TABLE + "_legacy");
+        // No CASCADE: a foreign key still pointing at the old table fails the conversion (and rolls it back)
+        // instead of being dropped silently
+        jdbcTemplate.execute("DROP TABLE " + TABLE + "_legacy");
+
+        // Indexes are declared on the parent and cascade to every partition
+        createIndex("index_notifications_on_assignment_id", "(assignment_id)");
+        createIndex("index_notifications_on_teacher_id", "(teacher_id)");
+        createIndex("index_notifications_on_user_id", "(user_id)");
+        createIndex("index_notifications_on_user_id_and_created_at_and_id", "(user_id, created_at, id)");
+        createIndex("index_notifications_on_teacher_id_and_created_at_and_id", "(teacher_id, created_at, id)");
+        createIndex("index_notifications_on_classroom_id_and_created_at_and_id", "(classroom_id, created_at, id)");
+        createIndex("index_notifications_unread_on_user_id", "(user_id, created_at, id) WHERE read_at IS NULL");
+        createIndex("index_notifications_unread_on_teacher_id", "(teacher_id, created_at, id) WHERE read_at IS NULL");
+    }
+
+    private void ensureUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(TABLE, current.plusMonths(i));
+        }
+    }
+
+    private void archiveExpiredPartitions() {
+        YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + ARCHIVE_TABLE + " (LIKE " + TABLE + ") " +
+                "PARTITION BY RANGE (created_at)");
+
+        for (String partition : partitionsOf(TABLE)) {
+            YearMonth month = monthOf(partition, TABLE);
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            String archived = ARCHIVE_TABLE + "_" + month.format(SUFFIX);
+            releaseUnread(partition);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + archived);
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " ATTACH PARTITION " + archived +
+                    " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            log.info("Archived notification partition {}", month);
+        }
+    }
+
+    private void dropExpiredArchivePartitions() {
+        YearMonth cutoff = YearMonth.now().minusMonths((long) retentionMonths + archiveMonths);
+        for (String partition : partitionsOf(ARCHIVE_TABLE)) {
+            YearMonth month = monthOf(partition, ARCHIVE_TABLE);
+            if (month != null && month.isBefore(cutoff)) {
+                // A no-op for months archived since counters were released on archive; covers older archives
+                releaseUnread(partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped archived notification partition {}", month);
+            }
+        }
+    }
+
+    /**
+     * Takes a partition's unread rows off notification_counters, in the retention transaction.
+     * Personal rows are marked read; classroom broadcasts still above a student's watermark are
+     * subtracted and the watermark moved past them. Both make a second run over the same
+     * partition find nothing.
+     */
+    private void releaseUnread(String partition) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int personal = jdbcTemplate.update(
+                "WITH unread AS (UPDATE " + partition + " SET read_at = ?, updated_at = ? " +
+                "WHERE read_at IS NULL AND COALESCE(user_id, teacher_id) IS NOT NULL " +
+                "RETURNING COALESCE(user_id, teacher_id) AS user_id) " +
+                "UPDATE notification_counters c SET unread_count = GREATEST(c.unread_count - u.count, 0), " +
+                "updated_at = ? FROM (SELECT user_id, COUNT(*) AS count FROM unread GROUP BY user_id) u " +
+                "WHERE c.user_id = u.user_id", now, now, now);
+        int students = jdbcTemplate.update(
+                "WITH expired AS (SELECT u.id AS user_id, COUNT(*) AS count, MAX(n.id) AS max_id " +
+                "FROM " + partition + " n JOIN users u ON u.classroom_id = n.classroom_id " +
+                "JOIN roles r ON r.id = u.role_id LEFT JOIN broadcast_read_states b ON b.user_id = u.id " +
+                "WHERE r.name = 'Student' AND u.status = 1 AND n.id > COALESCE(b.read_through_id, 0) " +
+                "AND NOT EXISTS (SELECT 1 FROM assignments a JOIN notification_muted_subjects m " +
+                "ON m.subject_id = a.subject_id WHERE a.id = n.assignment_id AND m.user_id = u.id) " +
+                "GROUP BY u.id), " +
+                "counted AS (UPDATE notification_counters c SET unread_count = GREATEST(c.unread_count - e.count, 0), " +
+                "updated_at = ? FROM expired e WHERE c.user_id = e.user_id) " +
+                "INSERT INTO broadcast_read_states (user_id, read_through_id, updated_at) " +
+                "SELECT user_id, max_id, ? FROM expired ON CONFLICT (user_id) DO UPDATE SET " +
+                "read_through_id = GREATEST(broadcast_read_states.read_through_id, EXCLUDED.read_through_id), " +
+                "updated_at = EXCLUDED.updated_at", now, now);
+        if (personal > 0 || students > 0) {
+            log.info("Released unread notifications of {} from the counters of {} recipients and {} students",
+                    partition, personal, students);
+        }
+    }
+
+    private void createPartition(String parent, YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + parent + "_" + month.format(SUFFIX) +
+                " PARTITION OF " + parent + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    private void createIndex(String name, String definition) {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + name + " ON " + TABLE + " " + definition);
+    }
+
+    private List<String> partitionsOf(String parent) {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ? ORDER BY c.relname", String.class, parent);
+    }
+
+    // Month encoded in a partition name such as notifications_2025_01; null for the default partition
+    private YearMonth monthOf(String partition, String parent) {
+        String suffix = partition.substring(parent.length() + 1);
+        try {
+            return YearMonth.parse(suffix, SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private boolean isPartitioned(String table) {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.relname = ? AND pg_table_is_visible(c.oid)",
+                String.class, table);
+        return kinds.contains("p");
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, ADVISORY_LOCK_KEY);
+    }
+}
@@ -0,0 +1,130 @@
+package com.java.eONE.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.eONE.model.Notification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON encoding of each notification, computed once and kept in a bounded LRU keyed by id.
+ *
+ * Notifications are immutable once written (read state lives outside the payload), so an
+ * entry never needs invalidating. Feed responses are assembled by copying cached fragments
+ * into a single array instead of building and serializing a DTO per row.
+ */
+@Component
+public class NotificationPayloadCache {
+
+    private static final byte[] PAGE_PREFIX = "{\"notifications\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CURSOR_FIELD = ",\"next_cursor\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, byte[]> fragments;
+
+    public NotificationPayloadCache(ObjectMapper objectMapper,
+                                    @Value("${notifications.payload-cache.max-entries:50000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.fragments = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // Encode eagerly at creation so the first feed read is already a cache hit
+    public void remember(Notification notification) {
+        byte[] encoded = encode(notification);
+        synchronized (fragments) {
+            fragments.put(notification.getId(), encoded);
+        }
+    }
+
+    public byte[] fragment(Notification notification) {
+        byte[] cached;
+        synchronized (fragments) {
+            cached = fragments.get(notification.getId());
+        }
+        if (cached != null) {
+            return cached;
+        }
+        byte[] encoded = encode(notification);
+        synchronized (fragments) {
+            fragments.put(notification.getId(), encoded);
+        }
+        return encoded;
+    }
+
+    // [fragment,fragment,...]
+    public byte[] toJsonArray(List<Notification> notifications) {
+        byte[][] parts = fragments(notifications);
+        byte[] out = new byte[arrayLength(parts)];
+        writeArray(parts, out, 0);
+        return out;
+    }
+
+    // {"notifications":[...],"next_cursor":"..."}, the same shape as NotificationPageDTO
+    public byte[] toJsonPage(List<Notification> notifications, String nextCursor) {
+        byte[][] parts = fragments(notifications);
+        byte[] cursor = nextCursor != null ? encodeValue(nextCursor) : NULL;
+        byte[] out = new byte[PAGE_PREFIX.length + arrayLength(parts) + CURSOR_FIELD.length + cursor.length + 1];
+        int pos = copy(PAGE_PREFIX, out, 0);
+        pos = writeArray(parts, out, pos);
+        pos = copy(CURSOR_FIELD, out, pos);
+        pos = copy(cursor, out, pos);
+        out[pos] = '}';
+        return out;
+    }
+
+    private byte[][] fragments(List<Notification> notifications) {
+        byte[][] parts = new byte[notifications.size()][];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = fragment(notifications.get(i));
+        }
+        return parts;
+    }
+
+    private static int arrayLength(byte[][] parts) {
+        int length = 2 + Math.max(0, parts.length - 1);
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        return length;
+    }
+
+    private static int writeArray(byte[][] parts, byte[] out, int pos) {
+        out[pos++] = '[';
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                out[pos++] = ',';
+            }
+            pos = copy(parts[i], out, pos);
+        }
+        out[pos++] = ']';
+        return pos;
+    }
+
+    private static int copy(byte[] src, byte[] out, int pos) {
+        System.arraycopy(src, 0, out, pos, src.length);
+        return pos + src.length;
+    }
+
+    private byte[] encode(Notification notification) {
+        return encodeValue(NotificationService.toDTO(notification));
+    }
+
+    private byte[] encodeValue(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode notification payload", e);
+        }
+    }
+}
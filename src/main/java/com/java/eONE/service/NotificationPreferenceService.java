@@ -0,0 +1,108 @@
+package com.java.eONE.service;
+
+import com.java.eONE.DTO.NotificationPreferenceDTO;
+import com.java.eONE.model.NotificationPreference;
+import com.java.eONE.repository.AssignmentSubmissionRepository;
+import com.java.eONE.repository.NotificationPreferenceRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-user notification preferences. They are checked before a notification is
+ * queued, so a muted recipient costs no outbox or notification write at all.
+ */
+@Service
+public class NotificationPreferenceService {
+
+    private static final Set<String> DELIVERY_MODES = Set.of(
+            NotificationPreference.DELIVERY_IMMEDIATE,
+            NotificationPreference.DELIVERY_DIGEST,
+            NotificationPreference.DELIVERY_OFF);
+
+    // Lets one application node send the digests; the others skip the run
+    private static final long DIGEST_LOCK_KEY = 7_310_002L;
+
+    private final NotificationPreferenceRepository preferenceRepository;
+    private final AssignmentSubmissionRepository submissionRepository;
+    private final NotificationService notificationService;
+
+    public NotificationPreferenceService(NotificationPreferenceRepository preferenceRepository,
+                                         AssignmentSubmissionRepository submissionRepository,
+                                         NotificationService notificationService) {
+        this.preferenceRepository = preferenceRepository;
+        this.submissionRepository = submissionRepository;
+        this.notificationService = notificationService;
+    }
+
+    @Transactional(readOnly = true)
+    public NotificationPreferenceDTO getPreferences(Long userId) {
+        return preferenceRepository.findById(userId)
+                .map(p -> new NotificationPreferenceDTO(p.getSubmissionDelivery(), new HashSet<>(p.getMutedSubjectIds())))
+                .orElseGet(() -> new NotificationPreferenceDTO(NotificationPreference.DELIVERY_IMMEDIATE, Set.of()));
+    }
+
+    @Transactional
+    public NotificationPreferenceDTO updatePreferences(Long userId, NotificationPreferenceDTO update) {
+        NotificationPreference preference = preferenceRepository.findById(userId).orElseGet(() -> {
+            NotificationPreference created = new NotificationPreference();
+            created.setUserId(userId);
+            created.setLastDigestAt(LocalDateTime.now());
+            return created;
+        });
+
+        if (update.getSubmissionDelivery() != null) {
+            if (!DELIVERY_MODES.contains(update.getSubmissionDelivery())) {
+                throw new IllegalArgumentException("submission_delivery must be one of " + DELIVERY_MODES);
+            }
+            if (NotificationPreference.DELIVERY_DIGEST.equals(update.getSubmissionDelivery())
+                    && !NotificationPreference.DELIVERY_DIGEST.equals(preference.getSubmissionDelivery())) {
+                // The first digest only covers submissions from the moment digest mode was chosen
+                preference.setLastDigestAt(LocalDateTime.now());
+            }
+            preference.setSubmissionDelivery(update.getSubmissionDelivery());
+        }
+        if (update.getMutedSubjectIds() != null) {
+            preference.getMutedSubjectIds().clear();
+            preference.getMutedSubjectIds().addAll(update.getMutedSubjectIds());
+        }
+
+        NotificationPreference saved = preferenceRepository.save(preference);
+        return new NotificationPreferenceDTO(saved.getSubmissionDelivery(), new HashSet<>(saved.getMutedSubjectIds()));
+    }
+
+    public boolean isSubjectMuted(Long userId, Long subjectId) {
+        return subjectId != null && preferenceRepository.isSubjectMuted(userId, subjectId);
+    }
+
+    // True when a teacher wants a notification per submission in this subject
+    public boolean wantsImmediateSubmissionNotice(Long teacherId, Long subjectId) {
+        String delivery = preferenceRepository.findSubmissionDelivery(teacherId)
+                .orElse(NotificationPreference.DELIVERY_IMMEDIATE);
+        return NotificationPreference.DELIVERY_IMMEDIATE.equals(delivery) && !isSubjectMuted(teacherId, subjectId);
+    }
+
+    // One summary notification per digest teacher instead of one per submission
+    @Scheduled(cron = "${notifications.digest.cron:0 0 18 * * *}")
+    @Transactional
+    public void sendSubmissionDigests() {
+        if (!preferenceRepository.tryAdvisoryLock(DIGEST_LOCK_KEY)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (NotificationPreference preference :
+                preferenceRepository.findBySubmissionDelivery(NotificationPreference.DELIVERY_DIGEST)) {
+            LocalDateTime since = preference.getLastDigestAt() != null ? preference.getLastDigestAt() : now.minusDays(1);
+            long received = submissionRepository.countForTeacherSince(preference.getUserId(), since);
+            if (received > 0) {
+                notificationService.notifyTeacher(preference.getUserId(), null,
+                        received + (received == 1 ? " new submission" : " new submissions") + " since your last digest.");
+            }
+            preference.setLastDigestAt(now);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.java.eONE.service;
+
+import com.java.eONE.DTO.NotificationMessageDTO;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+public class NotificationPushListener {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public NotificationPushListener(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    // Runs only after the notification rows are committed, so clients never see a message that was rolled back
+    @TransactionalEventListener
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        NotificationMessageDTO dto = new NotificationMessageDTO(event.message(), event.createdAt(), event.type());
+        if (event.recipientId() != null) {
+            messagingTemplate.convertAndSend("/topic/notifications/" + event.recipientId(), dto);
+        } else if (event.classroomId() != null) {
+            messagingTemplate.convertAndSend("/topic/classrooms/" + event.classroomId() + "/notifications", dto);
+        }
+    }
+}
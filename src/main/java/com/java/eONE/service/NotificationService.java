@@ -1,14 +1,23 @@
 package com.java.eONE.service;
 
 import com.java.eONE.DTO.NotificationMessageDTO;
+import com.java.eONE.DTO.NotificationPageDTO;
+import com.java.eONE.model.BroadcastReadState;
 import com.java.eONE.model.Notification;
+import com.java.eONE.model.NotificationCounter;
 import com.java.eONE.model.User;
 import com.java.eONE.repository.AssignmentRepository;
+import com.java.eONE.repository.BroadcastReadStateRepository;
+import com.java.eONE.repository.NotificationCounterRepository;
 import com.java.eONE.repository.NotificationRepository;
 import com.java.eONE.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,42 +33,243 @@ public class NotificationService {
     @Autowired
     private AssignmentRepository assignmentRepository;
 
+    @Autowired
+    private NotificationCounterRepository notificationCounterRepository;
+
+    @Autowired
+    private BroadcastReadStateRepository broadcastReadStateRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NotificationPayloadCache payloadCache;
+
     private static final String STUDENT_ROLE_NAME = "Student";
 
+    // Personal notification for a student (e.g. grading result)
+    @Transactional
+    public Notification notifyUser(Long userId, Long assignmentId, String message) {
+        Notification notification = new Notification();
+        notification.setUser(userRepository.getReferenceById(userId));
+        notification.setTeacher(null);
+        return save(notification, userId, assignmentId, message);
+    }
+
+    // Notification shown on a teacher's dashboard (e.g. a new submission)
+    @Transactional
+    public Notification notifyTeacher(Long teacherId, Long assignmentId, String message) {
+        Notification notification = new Notification();
+        notification.setTeacher(userRepository.getReferenceById(teacherId));
+        return save(notification, teacherId, assignmentId, message);
+    }
+
+    private Notification save(Notification notification, Long recipientId, Long assignmentId, String message) {
+        if (assignmentId != null) {
+            notification.setAssignment(assignmentRepository.getReferenceById(assignmentId));
+        }
+        notification.setMessage(message);
+        notification.setCreatedAt(LocalDateTime.now());
+        notification.setUpdatedAt(LocalDateTime.now());
+        Notification saved = notificationRepository.save(notification);
+        notificationCounterRepository.increment(recipientId, 1, saved.getCreatedAt());
+        payloadCache.remember(saved);
+
+        eventPublisher.publishEvent(new NotificationCreatedEvent(recipientId, null, message, saved.getCreatedAt(),
+                assignmentId != null ? "assignment" : "general"));
+        return saved;
+    }
+
     public List<NotificationMessageDTO> getUserNotifications(Long userId, Integer limit) {
-        User user = userRepository.findById(userId).orElse(null);
+        return loadFeed(userId, limit).stream().map(NotificationService::toDTO).collect(Collectors.toList());
+    }
+
+    // Same feed as getUserNotifications, as a ready-to-send JSON array built from cached payloads
+    public byte[] getUserNotificationsJson(Long userId, Integer limit) {
+        return payloadCache.toJsonArray(loadFeed(userId, limit));
+    }
+
+    private List<Notification> loadFeed(Long userId, Integer limit) {
+        User user = userRepository.findWithRoleById(userId).orElse(null);
         if (user == null) {
             System.out.println("User not found with ID: " + userId);
             return List.of(); // return empty list instead of null
         }
 
-        System.out.println("Getting notifications for user: " + user.getName() + " (Role: " + user.getRole().getName() + ")");
-        List<Notification> notifications;
-
-        if (STUDENT_ROLE_NAME.equals(user.getRole().getName())) {
-            // For students, get ONLY their personal notifications (where user_id = studentId)
-            // This includes assignment creation notifications and grading notifications
-            notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
-            
-            System.out.println("Found " + notifications.size() + " personal notifications for student: " + user.getName());
+        if (limit != null) {
+            // Let the database stop after `limit` rows instead of truncating the full history in memory
+            return loadPage(user, null, limit);
+        } else if (isStudent(user)) {
+            // For students: personal notifications (grading) merged with their classroom's broadcasts
+            // (assignment announcements)
+            return loadPage(user, null, Integer.MAX_VALUE);
         } else {
             // For teachers, get ONLY teacher notifications (where teacher_id = teacherId)
             // This includes student submission notifications
-            notifications = notificationRepository.findByTeacherIdOrderByCreatedAtDesc(userId);
-            
-            System.out.println("Found " + notifications.size() + " teacher notifications for teacher: " + user.getName());
+            return notificationRepository.findByTeacherIdOrderByCreatedAtDesc(userId);
+        }
+    }
+
+    /**
+     * Keyset-paginated feed: returns at most {@code pageSize} notifications older than
+     * {@code cursor} (or the newest ones when the cursor is null) plus the cursor of the next page.
+     */
+    public NotificationPageDTO getNotificationPage(Long userId, String cursor, int pageSize) {
+        FeedPage page = loadFeedPage(userId, cursor, pageSize);
+        return new NotificationPageDTO(page.rows().stream().map(NotificationService::toDTO).collect(Collectors.toList()),
+                page.nextCursor());
+    }
+
+    // Same page as getNotificationPage, encoded from cached payloads
+    public byte[] getNotificationPageJson(Long userId, String cursor, int pageSize) {
+        FeedPage page = loadFeedPage(userId, cursor, pageSize);
+        return payloadCache.toJsonPage(page.rows(), page.nextCursor());
+    }
+
+    private record FeedPage(List<Notification> rows, String nextCursor) {
+    }
+
+    private FeedPage loadFeedPage(Long userId, String cursor, int pageSize) {
+        User user = userRepository.findWithRoleById(userId).orElse(null);
+        if (user == null) {
+            return new FeedPage(List.of(), null);
+        }
+
+        NotificationCursor after = cursor != null && !cursor.isEmpty() ? NotificationCursor.decode(cursor) : null;
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<Notification> rows = loadPage(user, after, pageSize + 1);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Notification last = rows.get(rows.size() - 1);
+            nextCursor = new NotificationCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new FeedPage(rows, nextCursor);
+    }
+
+    /**
+     * Notifications newer than {@code since}, oldest first, capped at {@code limit}.
+     * Used by the long-poll endpoint to answer a parked request.
+     */
+    public List<NotificationMessageDTO> getNotificationsSince(User user, NotificationCursor since, int limit) {
+        List<Notification> rows;
+        if (isStudent(user) && user.getClassroom() != null) {
+            rows = notificationRepository.findStudentFeedAfter(user.getId(), user.getClassroom().getId(),
+                    since.createdAt(), since.id(), limit);
+        } else if (isStudent(user)) {
+            rows = notificationRepository.findUserPageAfter(user.getId(), since.createdAt(), since.id(), Limit.of(limit));
+        } else {
+            rows = notificationRepository.findTeacherPageAfter(user.getId(), since.createdAt(), since.id(), Limit.of(limit));
+        }
+        return rows.stream().map(NotificationService::toDTO).collect(Collectors.toList());
+    }
+
+    // Newest notifications, newest first; answers a long poll that has no cursor yet
+    public List<NotificationMessageDTO> getLatestNotifications(User user, int limit) {
+        return loadPage(user, null, limit).stream().map(NotificationService::toDTO).collect(Collectors.toList());
+    }
+
+    // Classroom whose broadcasts appear in this user's feed, or null
+    public Long getBroadcastClassroomId(User user) {
+        return isStudent(user) && user.getClassroom() != null ? user.getClassroom().getId() : null;
+    }
+
+    // Personal and broadcast notifications alike are counted into notification_counters as they are written
+    public long getUnreadCount(Long userId) {
+        return notificationCounterRepository.findById(userId)
+                .map(NotificationCounter::getUnreadCount)
+                .orElse(0L);
+    }
+
+    /**
+     * Moves a student's broadcast watermark to the classroom's newest broadcast, so announcements
+     * sent before they joined (or were approved) never show up as unread.
+     */
+    @Transactional
+    public void startBroadcastsFrom(User user) {
+        if (user.getRole() == null || !isStudent(user) || user.getClassroom() == null) {
+            return;
+        }
+        Long newest = notificationRepository.findMaxBroadcastIdUpTo(user.getClassroom().getId(),
+                NotificationCursor.HEAD.createdAt(), NotificationCursor.HEAD.id());
+        if (newest != null) {
+            broadcastReadStateRepository.advance(user.getId(), newest, LocalDateTime.now());
         }
+    }
+
+    /**
+     * Marks the user's unread notifications as read in one UPDATE: all of them, or only
+     * those at or before {@code cursor} in feed order. Returns the number of rows changed.
+     */
+    @Transactional
+    public int markRead(Long userId, String cursor) {
+        User user = userRepository.findWithRoleById(userId).orElse(null);
+        if (user == null) {
+            return 0;
+        }
+
+        NotificationCursor upTo = cursor != null && !cursor.isEmpty() ? NotificationCursor.decode(cursor) : null;
+        LocalDateTime now = LocalDateTime.now();
+        notificationCounterRepository.findByIdForUpdate(userId);
+        int marked;
+        if (isStudent(user)) {
+            marked = upTo == null
+                    ? notificationRepository.markAllReadForUser(userId, now)
+                    : notificationRepository.markReadUpToForUser(userId, upTo.createdAt(), upTo.id(), now);
+        } else {
+            marked = upTo == null
+                    ? notificationRepository.markAllReadForTeacher(userId, now)
+                    : notificationRepository.markReadUpToForTeacher(userId, upTo.createdAt(), upTo.id(), now);
+        }
+
+        // Classroom broadcasts are shared rows; reading them only moves this user's watermark
+        if (isStudent(user) && user.getClassroom() != null) {
+            NotificationCursor bound = upTo != null ? upTo : NotificationCursor.HEAD;
+            Long readThrough = notificationRepository.findMaxBroadcastIdUpTo(
+                    user.getClassroom().getId(), bound.createdAt(), bound.id());
+            long alreadyRead = broadcastReadStateRepository.findById(userId)
+                    .map(BroadcastReadState::getReadThroughId)
+                    .orElse(0L);
+            if (readThrough != null && readThrough > alreadyRead) {
+                marked += (int) notificationRepository.countVisibleBroadcasts(
+                        user.getClassroom().getId(), userId, alreadyRead, readThrough);
+                broadcastReadStateRepository.advance(userId, readThrough, now);
+            }
+        }
+
+        if (upTo == null) {
+            // Everything is read now, whatever the counter had drifted to
+            notificationCounterRepository.reset(userId, now);
+        } else if (marked > 0) {
+            notificationCounterRepository.decrement(userId, marked, now);
+        }
+        return marked;
+    }
 
-        if (limit != null && notifications.size() > limit) {
-            notifications = notifications.subList(0, limit);
+    private List<Notification> loadPage(User user, NotificationCursor after, int limit) {
+        Limit rowLimit = Limit.of(limit);
+        if (isStudent(user) && user.getClassroom() != null) {
+            NotificationCursor before = after != null ? after : NotificationCursor.HEAD;
+            return notificationRepository.findStudentFeedBefore(user.getId(), user.getClassroom().getId(),
+                    before.createdAt(), before.id(), limit);
         }
+        if (isStudent(user)) {
+            return after == null
+                    ? notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(user.getId(), rowLimit)
+                    : notificationRepository.findUserPageBefore(user.getId(), after.createdAt(), after.id(), rowLimit);
+        }
+        return after == null
+                ? notificationRepository.findByTeacherIdOrderByCreatedAtDescIdDesc(user.getId(), rowLimit)
+                : notificationRepository.findTeacherPageBefore(user.getId(), after.createdAt(), after.id(), rowLimit);
+    }
+
+    private boolean isStudent(User user) {
+        return STUDENT_ROLE_NAME.equals(user.getRole().getName());
+    }
 
-        // Map entity to DTO
-        return notifications.stream()
-                .map(n -> {
-                    String type = n.getAssignment() != null ? "assignment" : "general";
-                    return new NotificationMessageDTO(n.getMessage(), n.getCreatedAt(), type);
-                })
-                .collect(Collectors.toList());
+    static NotificationMessageDTO toDTO(Notification n) {
+        String type = n.getAssignment() != null ? "assignment" : "general";
+        return new NotificationMessageDTO(n.getId(), n.getMessage(), n.getCreatedAt(), type);
     }
 }
@@ -0,0 +1,122 @@
+package com.java.eONE.service;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Carries long-poll wakeups between nodes over Postgres LISTEN/NOTIFY.
+ *
+ * Every notification write also runs {@code pg_notify} inside its own transaction, so the signal
+ * is delivered only if the rows commit. Each node keeps one pooled connection listening on the
+ * channel and wakes its parked polls for signals sent by other nodes; its own writes already wake
+ * them through the in-process event.
+ */
+@Component
+public class NotificationSignalListener {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationSignalListener.class);
+
+    private static final String CHANNEL = "eone_notifications";
+    private static final int RECEIVE_TIMEOUT_MILLIS = 10_000;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final NotificationLongPollService longPollService;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private Thread listener;
+
+    public NotificationSignalListener(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                      NotificationLongPollService longPollService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.longPollService = longPollService;
+    }
+
+    // Runs inside the writing transaction; Postgres holds the NOTIFY back until commit and drops it on rollback
+    @EventListener
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        String target = event.recipientId() != null ? "user:" + event.recipientId()
+                : event.classroomId() != null ? "classroom:" + event.classroomId() : null;
+        if (target != null) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> { }, CHANNEL, nodeId + "|" + target);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "notification-signal-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                while (running) {
+                    PGNotification[] signals = pg.getNotifications(RECEIVE_TIMEOUT_MILLIS);
+                    if (signals != null) {
+                        for (PGNotification signal : signals) {
+                            handle(signal.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                // Polls on this node still wake for local writes and time out otherwise; retry shortly
+                log.warn("Notification signal listener lost its connection: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        String target = payload.substring(separator + 1);
+        try {
+            if (target.startsWith("user:")) {
+                longPollService.wake(Long.parseLong(target.substring("user:".length())), null);
+            } else if (target.startsWith("classroom:")) {
+                longPollService.wake(null, Long.parseLong(target.substring("classroom:".length())));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed notification signal: {}", payload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+}
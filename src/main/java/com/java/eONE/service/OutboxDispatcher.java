@@ -0,0 +1,265 @@
+package com.java.eONE.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.eONE.model.OutboxEvent;
+import com.java.eONE.repository.OutboxEventRepository;
+import com.java.eONE.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drains {@code outbox_events} in the background.
+ *
+ * Each event is handled in its own transaction that also stamps {@code processed_at},
+ * so database side effects (notification rows) are applied exactly once even if the
+ * node crashes mid-batch: an unfinished event keeps a null {@code processed_at} and
+ * is picked up again once its lease expires. WebSocket pushes and mail are sent after
+ * that transaction commits. Submission events are coalesced per (teacher, assignment)
+ * by {@link SubmissionNotificationCoalescer}; a claimed batch is widened to every due
+ * event of each submission group it touches, so a burst never splits across batches.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final NotificationFanoutService notificationFanoutService;
+    private final MailService mailService;
+    private final SubmissionNotificationCoalescer coalescer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            UserRepository userRepository,
+                            NotificationService notificationService,
+                            NotificationFanoutService notificationFanoutService,
+                            MailService mailService,
+                            SubmissionNotificationCoalescer coalescer,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${outbox.workers:4}") int workerCount) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.notificationFanoutService = notificationFanoutService;
+        this.mailService = mailService;
+        this.coalescer = coalescer;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(workerCount);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void drain() {
+        List<OutboxEvent> batch;
+        do {
+            batch = transactionTemplate.execute(status -> claimBatch());
+            List<Future<?>> pending = new ArrayList<>(batch.size());
+            for (List<OutboxEvent> unit : dispatchUnits(batch)) {
+                pending.add(workers.submit(() -> dispatch(unit)));
+            }
+            for (Future<?> future : pending) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Outbox worker failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } while (batch.size() >= batchSize);
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxEventRepository.findDueIdsForUpdate(now, batchSize);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> claimed = new ArrayList<>(ids);
+        claimed.addAll(claimSubmissionGroups(outboxEventRepository.findAllById(ids), ids, now));
+        outboxEventRepository.lease(claimed, now.plusSeconds(leaseSeconds));
+        List<OutboxEvent> events = new ArrayList<>(outboxEventRepository.findAllById(claimed));
+        events.sort(Comparator.comparing(OutboxEvent::getId));
+        return events;
+    }
+
+    // Pulls in the rest of each (teacher, assignment) submission burst that did not fit in the id-ordered batch,
+    // so one window produces one notification however many events it holds or what they are interleaved with
+    private List<Long> claimSubmissionGroups(List<OutboxEvent> events, List<Long> ids, LocalDateTime now) {
+        Set<Long> seen = new HashSet<>(ids);
+        Set<String> groups = new HashSet<>();
+        List<Long> extra = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            if (!OutboxService.SUBMISSION_CREATED.equals(event.getEventType())) {
+                continue;
+            }
+            JsonNode payload;
+            try {
+                payload = readPayload(event);
+            } catch (IllegalStateException e) {
+                continue;
+            }
+            if (!groups.add(coalescer.key(payload))) {
+                continue;
+            }
+            for (Long id : outboxEventRepository.findDueGroupIdsForUpdate(OutboxService.SUBMISSION_CREATED,
+                    payload.path("teacher_id").asText(), payload.path("assignment_id").asText(), now)) {
+                if (seen.add(id)) {
+                    extra.add(id);
+                }
+            }
+        }
+        return extra;
+    }
+
+    // Submission events for the same (teacher, assignment) are handled together; everything else alone
+    private List<List<OutboxEvent>> dispatchUnits(List<OutboxEvent> batch) {
+        List<List<OutboxEvent>> units = new ArrayList<>();
+        Map<String, List<OutboxEvent>> submissionGroups = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            if (OutboxService.SUBMISSION_CREATED.equals(event.getEventType())) {
+                String key;
+                try {
+                    key = coalescer.key(readPayload(event));
+                } catch (IllegalStateException e) {
+                    key = "event:" + event.getId();
+                }
+                submissionGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+            } else {
+                units.add(List.of(event));
+            }
+        }
+        units.addAll(submissionGroups.values());
+        return units;
+    }
+
+    private void dispatch(List<OutboxEvent> claimed) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // The lease can run out mid-dispatch; locking here keeps a second node that re-claimed the
+                // events from handling them again until this transaction has stamped processed_at
+                List<OutboxEvent> events = outboxEventRepository.findPendingForUpdate(
+                        claimed.stream().map(OutboxEvent::getId).toList());
+                if (events.isEmpty()) {
+                    return;
+                }
+
+                if (OutboxService.SUBMISSION_CREATED.equals(events.get(0).getEventType())) {
+                    List<JsonNode> payloads = events.stream().map(this::readPayload).toList();
+                    notificationService.notifyTeacher(
+                            payloads.get(0).get("teacher_id").asLong(),
+                            payloads.get(0).get("assignment_id").asLong(),
+                            coalescer.message(payloads));
+                } else {
+                    for (OutboxEvent event : events) {
+                        handle(event.getEventType(), readPayload(event));
+                    }
+                }
+
+                LocalDateTime now = LocalDateTime.now();
+                for (OutboxEvent event : events) {
+                    event.setProcessedAt(now);
+                    event.setLockedUntil(null);
+                }
+            });
+        } catch (RuntimeException e) {
+            for (OutboxEvent event : claimed) {
+                log.warn("Outbox event {} ({}) failed: {}", event.getId(), event.getEventType(), e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> recordFailure(event.getId(), e));
+            }
+        }
+    }
+
+    private void handle(String eventType, JsonNode payload) {
+        switch (eventType) {
+            case OutboxService.ASSIGNMENT_CREATED -> notificationFanoutService.notifyClassroomStudents(
+                    payload.get("classroom_id").asLong(),
+                    payload.get("assignment_id").asLong(),
+                    payload.get("message").asText());
+            case OutboxService.SUBMISSION_GRADED -> notificationService.notifyUser(
+                    payload.get("user_id").asLong(),
+                    payload.get("assignment_id").asLong(),
+                    payload.get("message").asText());
+            case OutboxService.USER_APPROVED -> userRepository.findById(payload.get("user_id").asLong())
+                    .ifPresent(user -> afterCommit(() -> mailService.sendApprovalEmail(user)));
+            case OutboxService.USER_REJECTED -> userRepository.findById(payload.get("user_id").asLong())
+                    .ifPresent(user -> afterCommit(() -> mailService.sendRejectionEmail(user)));
+            default -> throw new IllegalStateException("Unknown outbox event type: " + eventType);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private JsonNode readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable outbox payload for event " + event.getId(), e);
+        }
+    }
+
+    private void recordFailure(Long eventId, RuntimeException error) {
+        outboxEventRepository.findById(eventId).ifPresent(event -> {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(String.valueOf(error.getMessage()));
+            event.setLockedUntil(null);
+            if (attempts >= maxAttempts) {
+                // Give up: keep the row with its error for inspection but stop retrying
+                event.setProcessedAt(LocalDateTime.now());
+            } else {
+                event.setAvailableAt(LocalDateTime.now().plusSeconds(1L << Math.min(attempts, 10)));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
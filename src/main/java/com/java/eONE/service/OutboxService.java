@@ -0,0 +1,53 @@
+package com.java.eONE.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.eONE.model.OutboxEvent;
+import com.java.eONE.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Service
+public class OutboxService {
+
+    public static final String ASSIGNMENT_CREATED = "assignment_created";
+    public static final String SUBMISSION_CREATED = "submission_created";
+    public static final String SUBMISSION_GRADED = "submission_graded";
+    public static final String USER_APPROVED = "user_approved";
+    public static final String USER_REJECTED = "user_rejected";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records a side effect in the caller's transaction. The event only becomes
+     * visible to {@link OutboxDispatcher} if the surrounding domain write commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent enqueue(String eventType, Map<String, Object> payload) {
+        return enqueue(eventType, payload, null);
+    }
+
+    // Same as enqueue, but the event is not dispatched before availableAt
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent enqueue(String eventType, Map<String, Object> payload, LocalDateTime availableAt) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAvailableAt(availableAt);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+        return outboxEventRepository.save(event);
+    }
+}
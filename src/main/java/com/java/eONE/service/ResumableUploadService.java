@@ -0,0 +1,248 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.UploadSession;
+import com.java.eONE.repository.UploadSessionRepository;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Resumable uploads in the style of the tus protocol: the client declares the file size, sends
+ * the bytes in as many chunks as its connection allows, asks for the stored offset after a
+ * drop, and carries on from there.
+ *
+ * Chunks are written at their offset into a part file in the staging area and the offset is then
+ * advanced with a compare-and-set, so a retried chunk is harmless: bytes the server already has
+ * are skipped. Bytes that did arrive before a connection dropped are kept. A finished upload is
+ * {@linkplain #claim claimed} inside the transaction that attaches it to an entity, which removes
+ * the session in that same transaction.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Same fallback the download path uses for a nameless file
+    private static final String DEFAULT_FILE_NAME = "file";
+
+    // The chunk starts past the stored offset, or another request moved the offset while it was written
+    public static class OffsetConflictException extends RuntimeException {
+        private final long currentOffset;
+
+        public OffsetConflictException(long currentOffset) {
+            super("Upload is at offset " + currentOffset);
+            this.currentOffset = currentOffset;
+        }
+
+        public long getCurrentOffset() {
+            return currentOffset;
+        }
+    }
+
+    private final UploadSessionRepository sessionRepository;
+    private final BlobService blobService;
+    private final long maxFileSize;
+    private final Duration expireAfter;
+
+    public ResumableUploadService(UploadSessionRepository sessionRepository,
+                                  BlobService blobService,
+                                  @Value("${uploads.max-file-size:20MB}") DataSize maxFileSize,
+                                  @Value("${uploads.resumable.expire-after:24h}") Duration expireAfter) {
+        this.sessionRepository = sessionRepository;
+        this.blobService = blobService;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.expireAfter = expireAfter;
+    }
+
+    // Upload-Metadata is optional in tus, so an upload without a usable file name is stored under a default one
+    public UploadSession create(String fileName, long length) throws IOException {
+        String name = fileName != null ? FilenameUtils.getName(fileName).trim() : "";
+        if (name.isEmpty()) {
+            name = DEFAULT_FILE_NAME;
+        }
+        if (length <= 0) {
+            throw new IllegalArgumentException("Invalid Upload-Length");
+        }
+        if (length > maxFileSize) {
+            throw new MaxUploadSizeExceededException(maxFileSize);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = new UploadSession();
+        session.setId(UuidV7.next().toString());
+        session.setFileName(name);
+        session.setUploadLength(length);
+        session.setUploadOffset(0L);
+        session.setCreatedAt(now);
+        session.setUpdatedAt(now);
+
+        Files.createDirectories(partsDir());
+        Files.createFile(partPath(session.getId()));
+        return sessionRepository.save(session);
+    }
+
+    public Optional<UploadSession> find(String id) {
+        return sessionRepository.findById(id);
+    }
+
+    /**
+     * Writes a chunk that starts at {@code offset} and returns the new upload offset. Bytes below the
+     * current offset are skipped, so a chunk resent after a lost response is accepted as a no-op.
+     */
+    public long append(UploadSession session, long offset, InputStream body) throws IOException {
+        long current = session.getUploadOffset();
+        if (offset > current || offset < 0) {
+            throw new OffsetConflictException(current);
+        }
+        try {
+            body.skipNBytes(current - offset);
+        } catch (EOFException e) {
+            // Everything in this chunk is already stored
+            return current;
+        }
+
+        long remaining = session.getUploadLength() - current;
+        long written = 0;
+        boolean overrun = false;
+        IOException dropped = null;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (FileChannel channel = FileChannel.open(partPath(session.getId()), StandardOpenOption.WRITE)) {
+            channel.position(current);
+            while (true) {
+                int read;
+                try {
+                    read = body.read(buffer);
+                } catch (IOException e) {
+                    // Client went away mid-chunk: keep what arrived so the retry can resume after it
+                    dropped = e;
+                    break;
+                }
+                if (read == -1) {
+                    break;
+                }
+                if (written + read > remaining) {
+                    overrun = true;
+                    read = (int) (remaining - written);
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                written += read;
+                if (overrun) {
+                    break;
+                }
+            }
+            // The offset is only advanced over bytes that are on disk
+            channel.force(false);
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Upload data is no longer available, start a new upload");
+        }
+
+        if (written > 0 && sessionRepository.advance(session.getId(), current, current + written, LocalDateTime.now()) == 0) {
+            throw new OffsetConflictException(find(session.getId()).map(UploadSession::getUploadOffset).orElse(current));
+        }
+        if (dropped != null) {
+            throw dropped;
+        }
+        if (overrun) {
+            throw new IllegalArgumentException("Chunk runs past Upload-Length");
+        }
+        return current + written;
+    }
+
+    /**
+     * Takes a finished upload for attaching: locks and deletes the session in the caller's
+     * transaction and returns a staged link to the assembled file, ready for {@link BlobService#attach}.
+     * Claiming twice fails, so one upload can never end up attached to two records.
+     *
+     * The part file itself is only removed once the transaction commits; if it rolls back, the
+     * session comes back with its data intact and the client can simply finalize again.
+     */
+    @Transactional
+    public UploadService.StoredFile claim(String id) {
+        UploadSession session = sessionRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown upload_id"));
+        if (session.getUploadOffset() < session.getUploadLength()) {
+            throw new IllegalStateException("Upload is incomplete: " + session.getUploadOffset()
+                    + " of " + session.getUploadLength() + " bytes received");
+        }
+
+        Path part = partPath(id);
+        String sha256;
+        Path staged;
+        try {
+            sha256 = UploadService.sha256(part);
+            staged = blobService.stageLink(part);
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Upload data is no longer available, start a new upload");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read upload " + id, e);
+        }
+        sessionRepository.delete(session);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Commit: the blob store holds the content now. Rollback: the part stays for the retry.
+                deleteQuietly(status == STATUS_COMMITTED ? part : staged);
+            }
+        });
+        return new UploadService.StoredFile(staged, session.getFileName(), session.getUploadLength(), sha256);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    public void abort(UploadSession session) throws IOException {
+        sessionRepository.delete(session);
+        Files.deleteIfExists(partPath(session.getId()));
+    }
+
+    // Abandoned uploads: sessions idle for longer than uploads.resumable.expire-after
+    @Scheduled(fixedDelayString = "${uploads.resumable.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        for (UploadSession session : sessionRepository.findByUpdatedAtBefore(LocalDateTime.now().minus(expireAfter))) {
+            try {
+                abort(session);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not purge upload {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private Path partsDir() {
+        return blobService.stagingDir().resolve("resumable");
+    }
+
+    private Path partPath(String id) {
+        return partsDir().resolve(id + ".part");
+    }
+}
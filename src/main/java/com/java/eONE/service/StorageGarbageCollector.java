@@ -0,0 +1,311 @@
+package com.java.eONE.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Mark-and-sweep collection of stored files nothing points at any more.
+ *
+ * Mark: {@code ref_count} of every blob is recomputed from the rows that actually reference it
+ * (assignments, submissions, avatars), which repairs counts left wrong by failed requests, and
+ * blobs at zero get {@code unreferenced_since} stamped. Sweep: blobs unreferenced for longer than
+ * {@code storage.gc.grace-period} are deleted with their variants, row and file together in one
+ * transaction. The delete re-checks the count under the row lock that
+ * {@link BlobService#attach} also takes, so a blob being re-uploaded at that moment survives.
+ *
+ * With a local backend the store, the staging area and the legacy upload directories are also
+ * scanned for files that no row names (left by crashes, aborted requests and pre-blob updates)
+ * and those older than the grace period are removed. Legacy files that were migrated to blobs
+ * stay unless {@code storage.migration.delete-legacy} is set. Reclaimed bytes are logged and counted in
+ * the {@code storage.gc.reclaimed.bytes} metric.
+ */
+@Service
+public class StorageGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageGarbageCollector.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String REFERENCES =
+            "SELECT file_blob_id AS blob_id FROM assignments WHERE file_blob_id IS NOT NULL " +
+            "UNION ALL SELECT file_blob_id FROM assignment_submissions WHERE file_blob_id IS NOT NULL " +
+            "UNION ALL SELECT avatar_blob_id FROM users WHERE avatar_blob_id IS NOT NULL";
+
+    private static final String MARK =
+            "WITH counts AS (SELECT blob_id, COUNT(*) AS n FROM (" + REFERENCES + ") refs GROUP BY blob_id), " +
+            "actual AS (SELECT b.id, COALESCE(c.n, 0) AS n FROM storage_blobs b LEFT JOIN counts c ON c.blob_id = b.id) " +
+            "UPDATE storage_blobs b SET ref_count = a.n, " +
+            "unreferenced_since = CASE WHEN a.n = 0 THEN COALESCE(b.unreferenced_since, ?) ELSE NULL END " +
+            "FROM actual a WHERE a.id = b.id " +
+            "AND (b.ref_count <> a.n OR (a.n = 0) <> (b.unreferenced_since IS NOT NULL))";
+
+    private static final String SWEEP =
+            "DELETE FROM storage_blobs b WHERE b.id = ? AND b.ref_count = 0 AND b.unreferenced_since < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM assignments WHERE file_blob_id = b.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM assignment_submissions WHERE file_blob_id = b.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM users WHERE avatar_blob_id = b.id) " +
+            "RETURNING storage_key, byte_size";
+
+    // What one run removed, by kind of file
+    public record Report(long blobs, long orphanFiles, long legacyFiles, long stagingFiles, long bytes) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageService storageService;
+    private final BlobService blobService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${storage.gc.grace-period:24h}")
+    private Duration gracePeriod;
+
+    // Migrated legacy files are only garbage once the migration is allowed to delete them
+    @Value("${storage.migration.delete-legacy:false}")
+    private boolean deleteMigratedLegacy;
+
+    public StorageGarbageCollector(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   StorageService storageService,
+                                   BlobService blobService,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.storageService = storageService;
+        this.blobService = blobService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(cron = "${storage.gc.cron:0 0 3 * * *}")
+    public void run() {
+        try {
+            collect();
+        } catch (RuntimeException e) {
+            log.error("Storage garbage collection failed", e);
+        }
+    }
+
+    public Report collect() {
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(gracePeriod);
+
+        // Every step re-checks before deleting, so nodes running this at the same time do not conflict
+        int marked = jdbcTemplate.update(MARK, Timestamp.valueOf(now));
+        Tally blobs = sweepBlobs(cutoff);
+        Tally orphans = sweepOrphanFiles(cutoff);
+        Tally legacy = sweepLegacyFiles(cutoff);
+        Tally staging = sweepStaging(cutoff);
+
+        Report report = new Report(blobs.files, orphans.files, legacy.files, staging.files,
+                blobs.bytes + orphans.bytes + legacy.bytes + staging.bytes);
+        record("blob", blobs);
+        record("orphan", orphans);
+        record("legacy", legacy);
+        record("staging", staging);
+        log.info("Storage GC in {} ms: {} ref counts corrected, reclaimed {} bytes ({} blobs, {} orphan files, " +
+                        "{} legacy files, {} staging files)",
+                System.currentTimeMillis() - started, marked, report.bytes(), report.blobs(),
+                report.orphanFiles(), report.legacyFiles(), report.stagingFiles());
+        return report;
+    }
+
+    private static final class Tally {
+        long files;
+        long bytes;
+
+        void add(long size) {
+            files++;
+            bytes += size;
+        }
+    }
+
+    private Tally sweepBlobs(LocalDateTime cutoff) {
+        Tally tally = new Tally();
+        long afterId = 0;
+        List<Long> candidates;
+        do {
+            candidates = jdbcTemplate.queryForList(
+                    "SELECT id FROM storage_blobs WHERE ref_count = 0 AND unreferenced_since < ? AND id > ? " +
+                    "ORDER BY id LIMIT ?", Long.class, Timestamp.valueOf(cutoff), afterId, BATCH_SIZE);
+            for (Long id : candidates) {
+                afterId = id;
+                try {
+                    Long reclaimed = transactionTemplate.execute(status -> deleteBlob(id, cutoff, status));
+                    if (reclaimed != null) {
+                        tally.add(reclaimed);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not collect blob {}: {}", id, e.getMessage());
+                }
+            }
+        } while (candidates.size() == BATCH_SIZE);
+        return tally;
+    }
+
+    // Files are removed before the transaction commits: a crash in between leaves an unreferenced
+    // row without a file, which the next attach of that content simply re-stores
+    private Long deleteBlob(Long id, LocalDateTime cutoff, TransactionStatus status) {
+        List<String> variantKeys = jdbcTemplate.queryForList(
+                "DELETE FROM storage_blob_variants WHERE blob_id = ? RETURNING storage_key", String.class, id);
+        List<Map<String, Object>> deleted = jdbcTemplate.queryForList(SWEEP, id, Timestamp.valueOf(cutoff));
+        if (deleted.isEmpty()) {
+            // Referenced again since it was selected: keep its variants too
+            status.setRollbackOnly();
+            return null;
+        }
+        try {
+            for (String key : variantKeys) {
+                storageService.delete(key);
+            }
+            storageService.delete((String) deleted.get(0).get("storage_key"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ((Number) deleted.get(0).get("byte_size")).longValue();
+    }
+
+    // Files under blobs/, cold/ and variants/ whose key no row holds (local backend only)
+    private Tally sweepOrphanFiles(LocalDateTime cutoff) {
+        Tally tally = new Tally();
+        sweepKeys("blobs", "storage_blobs", cutoff, tally);
+        sweepKeys("cold", "storage_blobs", cutoff, tally);
+        sweepKeys("variants", "storage_blob_variants", cutoff, tally);
+        return tally;
+    }
+
+    private void sweepKeys(String prefix, String table, LocalDateTime cutoff, Tally tally) {
+        Path directory = storageService.localPath(prefix).orElse(null);
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        Path root = directory.getParent() != null ? directory.getParent() : Path.of("");
+        List<Path> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                batch.add(file);
+                if (batch.size() == BATCH_SIZE) {
+                    deleteUnknownKeys(root, batch, table, cutoff, tally);
+                    batch.clear();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not scan {}: {}", directory, e.getMessage());
+        }
+        deleteUnknownKeys(root, batch, table, cutoff, tally);
+    }
+
+    private void deleteUnknownKeys(Path root, List<Path> files, String table, LocalDateTime cutoff, Tally tally) {
+        if (files.isEmpty()) {
+            return;
+        }
+        List<String> keys = files.stream().map(f -> root.relativize(f).toString().replace('\\', '/')).toList();
+        Set<String> known = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT storage_key FROM " + table + " WHERE storage_key IN (" +
+                String.join(",", Collections.nCopies(keys.size(), "?")) + ")",
+                String.class, keys.toArray()));
+        for (int i = 0; i < files.size(); i++) {
+            if (!known.contains(keys.get(i))) {
+                deleteIfOlder(files.get(i), cutoff, tally);
+            }
+        }
+    }
+
+    /**
+     * Pre-blob files in uploads/ and submissionFile/ that no row names. A file named by a row is kept
+     * whether or not that row has since been moved to a blob, since FileController still serves it at
+     * its old URL. The migration renames a row's file to its display name, so unless
+     * {@code storage.migration.delete-legacy} is set a file whose display name a row carries is kept too.
+     */
+    private Tally sweepLegacyFiles(LocalDateTime cutoff) {
+        Tally tally = new Tally();
+        Set<String> uploads = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT file FROM assignments WHERE file IS NOT NULL " +
+                "UNION SELECT avatar FROM users WHERE avatar IS NOT NULL", String.class));
+        Set<String> submissions = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT file FROM assignment_submissions WHERE file IS NOT NULL", String.class));
+        sweepDirectory(BlobService.LEGACY_UPLOADS_DIR, name -> isLegacyReferenced(uploads, name), cutoff, tally);
+        sweepDirectory(BlobService.LEGACY_SUBMISSIONS_DIR, name -> isLegacyReferenced(submissions, name), cutoff, tally);
+        return tally;
+    }
+
+    private boolean isLegacyReferenced(Set<String> names, String storedName) {
+        return names.contains(storedName)
+                || (!deleteMigratedLegacy && names.contains(BlobService.legacyDisplayName(storedName)));
+    }
+
+    // Staged uploads of requests that died before attaching; resumable parts are purged with their sessions
+    private Tally sweepStaging(LocalDateTime cutoff) {
+        Tally tally = new Tally();
+        sweepDirectory(blobService.stagingDir(), name -> false, cutoff, tally);
+        return tally;
+    }
+
+    private void sweepDirectory(Path directory, Predicate<String> keep, LocalDateTime cutoff, Tally tally) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isRegularFile)
+                    .filter(f -> !keep.test(f.getFileName().toString()))
+                    .forEach(f -> deleteIfOlder(f, cutoff, tally));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not scan {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void deleteIfOlder(Path file, LocalDateTime cutoff, Tally tally) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (lastChanged(file, attributes).isBefore(cutoff.atZone(ZoneId.systemDefault()).toInstant())
+                    && Files.deleteIfExists(file)) {
+                tally.add(attributes.size());
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    // A hard link or rename into the store keeps the old mtime but updates ctime, so use the later of the two
+    private static Instant lastChanged(Path file, BasicFileAttributes attributes) {
+        Instant modified = attributes.lastModifiedTime().toInstant();
+        try {
+            Instant changed = ((FileTime) Files.getAttribute(file, "unix:ctime")).toInstant();
+            return changed.isAfter(modified) ? changed : modified;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return modified;
+        }
+    }
+
+    private void record(String kind, Tally tally) {
+        meterRegistry.counter("storage.gc.reclaimed.bytes", "kind", kind).increment(tally.bytes);
+        meterRegistry.counter("storage.gc.reclaimed.files", "kind", kind).increment(tally.files);
+    }
+}
@@ -0,0 +1,214 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.StorageBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One-shot migration to the sharded blob layout, enabled with {@code storage.migration.enabled=true}
+ * and run once on startup:
+ *
+ * <ol>
+ *   <li>blobs and variants stored under flat keys are re-keyed to {@code blobs/ab/cd/<sha256>};</li>
+ *   <li>files from before the blob store ({@code uploads/} and {@code submissionFile/}, named
+ *       {@code <millis>_<name>}) are hashed into blobs and their rows pointed at them.</li>
+ * </ol>
+ *
+ * Work is spread over {@code storage.migration.threads} workers. The app keeps serving meanwhile:
+ * an object is copied to its new key before the row changes and the old key is removed after,
+ * and rows are only updated while they still hold the value that was read, so uploads that
+ * happen during the run win. Re-running skips everything already migrated.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.migration.enabled", havingValue = "true")
+public class StorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    // A table with a legacy file-name column and the blob column that replaces it
+    private record LegacyColumn(String table, String fileColumn, String blobColumn, Path directory) {
+    }
+
+    private record LegacyRow(LegacyColumn column, long id, String storedName) {
+    }
+
+    private static final List<LegacyColumn> LEGACY_COLUMNS = List.of(
+            new LegacyColumn("assignments", "file", "file_blob_id", BlobService.LEGACY_UPLOADS_DIR),
+            new LegacyColumn("users", "avatar", "avatar_blob_id", BlobService.LEGACY_UPLOADS_DIR),
+            new LegacyColumn("assignment_submissions", "file", "file_blob_id", BlobService.LEGACY_SUBMISSIONS_DIR));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlobService blobService;
+    private final StorageService storageService;
+
+    @Value("${storage.migration.threads:4}")
+    private int threads;
+
+    // Legacy files are kept by default so old /uploads/ links keep working until the storage GC's grace period ends
+    @Value("${storage.migration.delete-legacy:false}")
+    private boolean deleteLegacy;
+
+    private final AtomicInteger migrated = new AtomicInteger();
+    private final AtomicInteger missing = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public StorageMigrationService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   BlobService blobService,
+                                   StorageService storageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.blobService = blobService;
+        this.storageService = storageService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        long started = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT id, checksum, storage_key FROM storage_blobs")) {
+                String target = BlobService.blobKey((String) row.get("checksum"));
+                // Cold-tier keys are already sharded
+                if (!target.equals(row.get("storage_key")) && !BlobService.isCold((String) row.get("storage_key"))) {
+                    tasks.add(workers.submit(() -> rekey("storage_blobs", ((Number) row.get("id")).longValue(),
+                            (String) row.get("storage_key"), target)));
+                }
+            }
+            for (Map<String, Object> row : jdbcTemplate.queryForList(
+                    "SELECT v.id, v.variation, v.storage_key, b.checksum FROM storage_blob_variants v " +
+                    "JOIN storage_blobs b ON b.id = v.blob_id")) {
+                String target = BlobService.variantKey((String) row.get("checksum"), (String) row.get("variation"));
+                if (!target.equals(row.get("storage_key"))) {
+                    tasks.add(workers.submit(() -> rekey("storage_blob_variants", ((Number) row.get("id")).longValue(),
+                            (String) row.get("storage_key"), target)));
+                }
+            }
+            // Rows sharing one legacy file (same-millisecond uploads overwrote each other) are migrated together
+            for (List<LegacyRow> group : legacyRowsByFile().values()) {
+                tasks.add(workers.submit(() -> migrateLegacyFile(group)));
+            }
+            await(tasks);
+        } finally {
+            workers.shutdown();
+        }
+        log.info("Storage migration finished in {} ms: {} migrated, {} with no stored file, {} failed",
+                System.currentTimeMillis() - started, migrated.get(), missing.get(), failed.get());
+    }
+
+    private void rekey(String table, long id, String sourceKey, String targetKey) {
+        try {
+            if (storageService.exists(sourceKey)) {
+                storageService.copy(sourceKey, targetKey);
+            } else if (!storageService.exists(targetKey)) {
+                missing.incrementAndGet();
+                return;
+            }
+            int updated = jdbcTemplate.update("UPDATE " + table + " SET storage_key = ? WHERE id = ? AND storage_key = ?",
+                    targetKey, id, sourceKey);
+            if (updated == 1) {
+                storageService.delete(sourceKey);
+                migrated.incrementAndGet();
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Could not move {} {} from {} to {}: {}", table, id, sourceKey, targetKey, e.getMessage());
+        }
+    }
+
+    private Map<Path, List<LegacyRow>> legacyRowsByFile() {
+        Map<Path, List<LegacyRow>> groups = new LinkedHashMap<>();
+        for (LegacyColumn column : LEGACY_COLUMNS) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, " + column.fileColumn() + " AS name FROM " + column.table() +
+                    " WHERE " + column.blobColumn() + " IS NULL AND " + column.fileColumn() + " <> ''");
+            Path base = column.directory().toAbsolutePath().normalize();
+            for (Map<String, Object> row : rows) {
+                String storedName = (String) row.get("name");
+                Path file = base.resolve(storedName).normalize();
+                if (!base.equals(file.getParent())) {
+                    failed.incrementAndGet();
+                    log.warn("Skipping {} {}: file name {} leaves {}", column.table(), row.get("id"), storedName, base);
+                    continue;
+                }
+                groups.computeIfAbsent(file, f -> new ArrayList<>())
+                        .add(new LegacyRow(column, ((Number) row.get("id")).longValue(), storedName));
+            }
+        }
+        return groups;
+    }
+
+    private void migrateLegacyFile(List<LegacyRow> rows) {
+        LegacyRow first = rows.get(0);
+        Path source = first.column().directory().toAbsolutePath().normalize().resolve(first.storedName());
+        if (!Files.isRegularFile(source)) {
+            missing.addAndGet(rows.size());
+            return;
+        }
+        try {
+            String sha256 = UploadService.sha256(source);
+            long size = Files.size(source);
+            String displayName = BlobService.legacyDisplayName(first.storedName());
+            for (LegacyRow row : rows) {
+                // Each row takes its own reference, and attach consumes the staged file, so stage one per row
+                UploadService.StoredFile staged = new UploadService.StoredFile(
+                        blobService.stageLink(source), displayName, size, sha256);
+                transactionTemplate.executeWithoutResult(status -> {
+                    StorageBlob blob = blobService.attach(staged);
+                    int updated = jdbcTemplate.update(
+                            "UPDATE " + row.column().table() + " SET " + row.column().blobColumn() + " = ?, " +
+                            row.column().fileColumn() + " = ? WHERE id = ? AND " + row.column().blobColumn() +
+                            " IS NULL AND " + row.column().fileColumn() + " = ?",
+                            blob.getId(), displayName, row.id(), row.storedName());
+                    if (updated == 0) {
+                        // The row got a new file while we were working
+                        blobService.release(blob);
+                    }
+                });
+                migrated.incrementAndGet();
+            }
+            if (deleteLegacy) {
+                Files.deleteIfExists(source);
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.addAndGet(rows.size());
+            log.warn("Could not migrate legacy file {}: {}", source, e.getMessage());
+        }
+    }
+
+    private static void await(List<Future<?>> tasks) {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                log.error("Storage migration task failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
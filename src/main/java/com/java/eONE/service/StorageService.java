@@ -0,0 +1,35 @@
+package com.java.eONE.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where blob bytes live. Keys are store-relative paths such as {@code blobs/ab/cd/<sha256>};
+ * the backend is chosen with {@code storage.backend} ({@code local} or {@code s3}).
+ */
+public interface StorageService {
+
+    // Moves a staged local file under key; the staged file is gone afterwards
+    void put(String key, Path staged) throws IOException;
+
+    boolean exists(String key);
+
+    // Copies the object under a second key, leaving the source in place
+    void copy(String sourceKey, String targetKey) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * A time-limited URL the client can download from without going through the app,
+     * or empty when the backend has no such URL and the app must serve the bytes itself.
+     */
+    Optional<URI> directDownloadUrl(String key, String fileName, String contentType);
+
+    // Path of the bytes on this node's disk, or empty for remote backends
+    Optional<Path> localPath(String key);
+}
@@ -0,0 +1,204 @@
+package com.java.eONE.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves files nobody is likely to open again out of the hot tier: blobs older than
+ * {@code storage.tiering.cold-after}, and blobs only used by assignments and submissions of
+ * inactive classrooms (finished batches). Avatars always stay hot.
+ *
+ * Cold blobs live under {@code cold/ab/cd/<sha256>}, which can be mounted on cheaper disk (or given
+ * an object-store lifecycle rule). Content that is not already compressed (plain text, CSV, old
+ * binary Office files) is gzipped on the way and kept that way if it saves at least a tenth; images,
+ * PDFs, media, archives and ZIP-based Office documents are copied as they are. Downloads decompress
+ * transparently, see {@link BlobService#open(com.java.eONE.model.StorageBlob)}.
+ *
+ * A blob is copied to its cold key before the row is switched, and the hot copy is removed only
+ * once the row no longer names it, the same way StorageMigrationService re-keys blobs. A cold copy
+ * left behind by a lost race is an orphan for StorageGarbageCollector.
+ */
+@Service
+public class StorageTieringService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageTieringService.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_BYTES = 16;
+
+    // A reference from an assignment or submission of a classroom that is still running
+    private static final String ACTIVE_REFERENCE =
+            "EXISTS (SELECT 1 FROM assignments a JOIN subjects s ON s.id = a.subject_id " +
+            "JOIN classrooms c ON c.id = s.classroom_id " +
+            "WHERE a.file_blob_id = b.id AND c.is_active) " +
+            "OR EXISTS (SELECT 1 FROM assignment_submissions sub JOIN assignments a ON a.id = sub.assignment_id " +
+            "JOIN subjects s ON s.id = a.subject_id JOIN classrooms c ON c.id = s.classroom_id " +
+            "WHERE sub.file_blob_id = b.id AND c.is_active)";
+
+    private static final String CANDIDATES =
+            "SELECT b.id, b.checksum, b.storage_key, b.byte_size FROM storage_blobs b " +
+            "WHERE b.id > ? AND b.storage_key LIKE 'blobs/%' AND b.ref_count > 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM users u WHERE u.avatar_blob_id = b.id) " +
+            "AND (b.created_at < ? OR NOT (" + ACTIVE_REFERENCE + ")) " +
+            "ORDER BY b.id LIMIT ?";
+
+    // Leading bytes of formats that are compressed already
+    private static final List<byte[]> COMPRESSED_MAGIC = List.of(
+            new byte[]{'P', 'K', 3, 4},                              // ZIP: docx, xlsx, pptx, odt, epub
+            new byte[]{(byte) 0x1f, (byte) 0x8b},                    // gzip
+            new byte[]{(byte) 0xff, (byte) 0xd8, (byte) 0xff},       // JPEG
+            new byte[]{(byte) 0x89, 'P', 'N', 'G'},
+            new byte[]{'G', 'I', 'F', '8'},
+            new byte[]{'%', 'P', 'D', 'F'},
+            new byte[]{'R', 'I', 'F', 'F'},                          // WebP, AVI, WAV
+            new byte[]{'7', 'z', (byte) 0xbc, (byte) 0xaf},
+            new byte[]{'R', 'a', 'r', '!'},
+            new byte[]{'B', 'Z', 'h'},
+            new byte[]{(byte) 0xfd, '7', 'z', 'X', 'Z'},
+            new byte[]{(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd}, // zstd
+            new byte[]{'I', 'D', '3'},                               // MP3
+            new byte[]{'O', 'g', 'g', 'S'},
+            new byte[]{(byte) 0x1a, (byte) 0x45, (byte) 0xdf, (byte) 0xa3}); // WebM, MKV
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageService storageService;
+    private final BlobService blobService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${storage.tiering.cold-after:365d}")
+    private Duration coldAfter;
+
+    public StorageTieringService(JdbcTemplate jdbcTemplate,
+                                 StorageService storageService,
+                                 BlobService blobService,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storageService = storageService;
+        this.blobService = blobService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(cron = "${storage.tiering.cron:0 0 4 * * *}")
+    public void run() {
+        try {
+            moveToCold();
+        } catch (RuntimeException e) {
+            log.error("Storage tiering failed", e);
+        }
+    }
+
+    // Returns the number of blobs moved
+    public int moveToCold() {
+        long started = System.currentTimeMillis();
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(coldAfter));
+        int moved = 0;
+        long saved = 0;
+        long afterId = 0;
+        List<Map<String, Object>> candidates;
+        do {
+            candidates = jdbcTemplate.queryForList(CANDIDATES, afterId, cutoff, BATCH_SIZE);
+            for (Map<String, Object> row : candidates) {
+                long id = ((Number) row.get("id")).longValue();
+                afterId = id;
+                try {
+                    Long stored = move(id, (String) row.get("checksum"), (String) row.get("storage_key"),
+                            ((Number) row.get("byte_size")).longValue());
+                    if (stored != null) {
+                        moved++;
+                        saved += ((Number) row.get("byte_size")).longValue() - stored;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not move blob {} to the cold tier: {}", id, e.getMessage());
+                }
+            }
+        } while (candidates.size() == BATCH_SIZE);
+
+        meterRegistry.counter("storage.tiering.moved").increment(moved);
+        meterRegistry.counter("storage.tiering.saved.bytes").increment(saved);
+        log.info("Storage tiering in {} ms: {} blobs moved to the cold tier, {} bytes saved by compression",
+                System.currentTimeMillis() - started, moved, saved);
+        return moved;
+    }
+
+    // Returns the stored size in the cold tier, or null when the blob was not moved
+    private Long move(long id, String sha256, String hotKey, long size) throws IOException {
+        if (!storageService.exists(hotKey)) {
+            return null;
+        }
+
+        String coldKey = null;
+        long stored = size;
+        if (size > 0 && worthCompressing(hotKey)) {
+            Path compressed = gzip(hotKey);
+            try {
+                long compressedSize = Files.size(compressed);
+                if (compressedSize <= size - size / 10) {
+                    coldKey = BlobService.coldKey(sha256, true);
+                    stored = compressedSize;
+                    storageService.put(coldKey, compressed);
+                }
+            } finally {
+                Files.deleteIfExists(compressed);
+            }
+        }
+        if (coldKey == null) {
+            coldKey = BlobService.coldKey(sha256, false);
+            storageService.copy(hotKey, coldKey);
+        }
+
+        // Only while the row still points at what was copied: a concurrent GC or re-store wins
+        int updated = jdbcTemplate.update(
+                "UPDATE storage_blobs SET storage_key = ?, content_encoding = ? WHERE id = ? AND storage_key = ?",
+                coldKey, stored < size ? BlobService.GZIP : null, id, hotKey);
+        if (updated == 0) {
+            return null;
+        }
+        storageService.delete(hotKey);
+        return stored;
+    }
+
+    private boolean worthCompressing(String key) throws IOException {
+        byte[] head;
+        try (InputStream in = storageService.open(key)) {
+            head = in.readNBytes(SNIFF_BYTES);
+        }
+        for (byte[] magic : COMPRESSED_MAGIC) {
+            if (head.length >= magic.length && Arrays.equals(head, 0, magic.length, magic, 0, magic.length)) {
+                return false;
+            }
+        }
+        // MP4, MOV, HEIC: "ftyp" box at offset 4
+        return !(head.length >= 8 && head[4] == 'f' && head[5] == 't' && head[6] == 'y' && head[7] == 'p');
+    }
+
+    private Path gzip(String key) throws IOException {
+        Path target = Files.createTempFile(Files.createDirectories(blobService.stagingDir()), "cold-", ".gz");
+        try (InputStream in = storageService.open(key);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), BUFFER_SIZE)) {
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return target;
+    }
+}
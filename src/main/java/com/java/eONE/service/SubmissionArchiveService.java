@@ -0,0 +1,163 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.AssignmentSubmission;
+import com.java.eONE.repository.AssignmentSubmissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams every submission of an assignment as one ZIP archive.
+ *
+ * Entries are copied from storage to the response through a fixed buffer; nothing is
+ * staged in memory or on disk. Formats that are already compressed (PDF, images, Office
+ * Open XML) are written STORED: for local files that costs a CRC pre-read of the file
+ * instead of a pointless deflate; for remote blobs, which would have to be downloaded
+ * twice, they go through the deflater at level 0 instead.
+ */
+@Service
+public class SubmissionArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionArchiveService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "pdf", "jpg", "jpeg", "png", "gif", "webp", "heic",
+            "docx", "xlsx", "pptx", "odt", "zip", "rar", "7z", "gz", "mp3", "mp4", "mov");
+
+    private final AssignmentSubmissionRepository submissionRepository;
+    private final BlobService blobService;
+
+    public SubmissionArchiveService(AssignmentSubmissionRepository submissionRepository, BlobService blobService) {
+        this.submissionRepository = submissionRepository;
+        this.blobService = blobService;
+    }
+
+    // Where to read one entry from: a local path, or a storage key for remote backends and gzipped cold blobs
+    public record ArchiveEntry(String name, Path localPath, String storageKey, String contentEncoding) {
+    }
+
+    /**
+     * Resolves the archive entries up front so the response can be streamed after the
+     * request's persistence context is gone.
+     */
+    @Transactional(readOnly = true)
+    public List<ArchiveEntry> entriesFor(Long assignmentId) {
+        List<ArchiveEntry> entries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (AssignmentSubmission submission : submissionRepository.findForExport(assignmentId)) {
+            String fileName = submission.getFile();
+            if (fileName == null || fileName.isEmpty()) {
+                continue;
+            }
+            Path localPath = null;
+            String storageKey = null;
+            String contentEncoding = null;
+            if (submission.getFileBlob() != null) {
+                storageKey = submission.getFileBlob().getStorageKey();
+                contentEncoding = submission.getFileBlob().getContentEncoding();
+                if (contentEncoding == null) {
+                    localPath = blobService.localPath(submission.getFileBlob()).orElse(null);
+                }
+            } else {
+                localPath = BlobService.LEGACY_SUBMISSIONS_DIR.resolve(fileName);
+                fileName = BlobService.legacyDisplayName(fileName);
+            }
+            String name = uniqueName(names, sanitize(submission.getUser().getName()) + "/" + sanitize(fileName));
+            entries.add(new ArchiveEntry(name, localPath, storageKey, contentEncoding));
+        }
+        return entries;
+    }
+
+    public void write(List<ArchiveEntry> entries, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (ArchiveEntry entry : entries) {
+            try {
+                writeEntry(zip, entry, buffer);
+            } catch (NoSuchFileException e) {
+                // A missing file must not abort an export that is already half sent
+                log.warn("Skipping {} in submissions export: file not found", entry.name());
+            }
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeEntry(ZipOutputStream zip, ArchiveEntry entry, byte[] buffer) throws IOException {
+        boolean compressed = COMPRESSED_EXTENSIONS.contains(extension(entry.name()));
+        ZipEntry zipEntry = new ZipEntry(entry.name());
+
+        if (compressed && entry.localPath() != null) {
+            CRC32 crc = new CRC32();
+            long size = 0;
+            try (InputStream in = Files.newInputStream(entry.localPath())) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                    size += read;
+                }
+            }
+            zipEntry.setMethod(ZipEntry.STORED);
+            zipEntry.setSize(size);
+            zipEntry.setCompressedSize(size);
+            zipEntry.setCrc(crc.getValue());
+        } else {
+            zipEntry.setMethod(ZipEntry.DEFLATED);
+            zip.setLevel(compressed ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+        }
+
+        try (InputStream in = entry.localPath() != null
+                ? Files.newInputStream(entry.localPath())
+                : blobService.open(entry.storageKey(), entry.contentEncoding())) {
+            if (entry.storageKey() != null) {
+                blobService.countRead(entry.storageKey());
+            }
+            zip.putNextEntry(zipEntry);
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                zip.write(buffer, 0, read);
+            }
+            zip.closeEntry();
+        }
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static String sanitize(String name) {
+        String cleaned = name == null ? "" : name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        return cleaned.isEmpty() ? "unnamed" : cleaned;
+    }
+
+    // Two files with the same name from one student become "notes.pdf" and "notes (2).pdf"
+    private static String uniqueName(Set<String> taken, String name) {
+        String candidate = name;
+        int dot = name.lastIndexOf('.');
+        String base = dot > name.lastIndexOf('/') ? name.substring(0, dot) : name;
+        String suffix = dot > name.lastIndexOf('/') ? name.substring(dot) : "";
+        for (int n = 2; !taken.add(candidate); n++) {
+            candidate = base + " (" + n + ")" + suffix;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,48 @@
+package com.java.eONE.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Merges bursts of submission notifications for the same (teacher, assignment).
+ *
+ * Submission events are held in the outbox until the end of the fixed window they
+ * were created in. Every submission for an assignment in that window becomes due at
+ * the same moment, is claimed in the same dispatcher batch and turns into one
+ * aggregated notification ("14 new submissions for Essay 2") instead of one row each.
+ */
+@Component
+public class SubmissionNotificationCoalescer {
+
+    private final long windowSeconds;
+
+    public SubmissionNotificationCoalescer(@Value("${notifications.coalesce-window-seconds:120}") long windowSeconds) {
+        this.windowSeconds = Math.max(windowSeconds, 1);
+    }
+
+    // End of the coalescing window containing `now`; used as the outbox event's available_at
+    public LocalDateTime windowEnd(LocalDateTime now) {
+        ZoneId zone = ZoneId.systemDefault();
+        long epochSecond = now.atZone(zone).toEpochSecond();
+        long end = (epochSecond / windowSeconds + 1) * windowSeconds;
+        return LocalDateTime.ofEpochSecond(end, 0, zone.getRules().getOffset(now));
+    }
+
+    // Events sharing a key are folded into a single notification
+    public String key(JsonNode payload) {
+        return payload.path("teacher_id").asText() + ":" + payload.path("assignment_id").asText();
+    }
+
+    public String message(List<JsonNode> payloads) {
+        if (payloads.size() == 1) {
+            return payloads.get(0).get("message").asText();
+        }
+        String title = payloads.get(0).path("assignment_title").asText("an assignment");
+        return payloads.size() + " new submissions for " + title + ". Please review them.";
+    }
+}
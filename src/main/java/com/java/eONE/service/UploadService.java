@@ -0,0 +1,193 @@
+package com.java.eONE.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Streams multipart uploads into the blob store's staging directory.
+ *
+ * Spring's multipart resolver is disabled (spring.servlet.multipart.enabled=false), so nothing
+ * parses or spools the request body before the controller runs. Parts are read from the socket
+ * through a fixed-size buffer, and size and SHA-256 are computed while the bytes are written, so
+ * heap and temp-disk use per upload stay constant regardless of file size. The staged file sits
+ * on the same filesystem as the store and is renamed into place by {@link BlobService#attach}.
+ */
+@Service
+public class UploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Text form fields are ids, titles and descriptions; anything larger is not a legitimate field
+    private static final int MAX_FIELD_BYTES = 64 * 1024;
+
+    private final BlobService blobService;
+    private final long maxFileSize;
+    private final long maxRequestSize;
+
+    public UploadService(BlobService blobService,
+                         @Value("${uploads.max-file-size:20MB}") DataSize maxFileSize,
+                         @Value("${uploads.max-request-size:21MB}") DataSize maxRequestSize) {
+        this.blobService = blobService;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxRequestSize = maxRequestSize.toBytes();
+    }
+
+    // A staged upload; fileName is the client's file name without any directory part
+    public record StoredFile(Path path, String fileName, long size, String sha256) {
+    }
+
+    /**
+     * Text fields of a multipart form plus the file stored from its {@code fileField} part
+     * (null when the part was missing or empty).
+     */
+    public record UploadForm(Map<String, String> fields, StoredFile file) {
+
+        public String get(String name) {
+            return fields.get(name);
+        }
+
+        public String require(String name) {
+            String value = fields.get(name);
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("Missing " + name);
+            }
+            return value;
+        }
+
+        public Long requireLong(String name) {
+            try {
+                return Long.valueOf(require(name).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + name);
+            }
+        }
+    }
+
+    public UploadForm receive(HttpServletRequest request, String fileField) throws IOException {
+        JakartaServletFileUpload<?, ?> upload = new JakartaServletFileUpload<>();
+        upload.setSizeMax(maxRequestSize);
+
+        Map<String, String> fields = new HashMap<>();
+        StoredFile stored = null;
+        try {
+            FileItemInputIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                try (InputStream in = item.getInputStream()) {
+                    if (item.isFormField()) {
+                        fields.put(item.getFieldName(), readField(item.getFieldName(), in));
+                    } else if (fileField.equals(item.getFieldName()) && stored == null
+                            && item.getName() != null && !item.getName().isEmpty()) {
+                        stored = store(in, item.getName());
+                        if (stored.size() == 0) {
+                            discard(stored);
+                            stored = null;
+                        }
+                    }
+                    // Other file parts are skipped; closing the stream drains them
+                }
+            }
+        } catch (FileUploadSizeException e) {
+            discard(stored);
+            throw new MaxUploadSizeExceededException(maxRequestSize, e);
+        } catch (IOException | RuntimeException e) {
+            discard(stored);
+            throw e;
+        }
+        return new UploadForm(fields, stored);
+    }
+
+    public StoredFile store(InputStream in, String originalFilename) throws IOException {
+        Path directory = blobService.stagingDir();
+        Files.createDirectories(directory);
+        String fileName = FilenameUtils.getName(originalFilename);
+        Path target = directory.resolve(UuidV7.next() + ".upload");
+
+        MessageDigest sha256 = newSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                if (size > maxFileSize) {
+                    throw new MaxUploadSizeExceededException(maxFileSize);
+                }
+                sha256.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return new StoredFile(target, fileName, size, HexFormat.of().formatHex(sha256.digest()));
+    }
+
+    // Removes the staged file of a request that was then rejected
+    public void discard(StoredFile file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file.path());
+        } catch (IOException e) {
+            log.warn("Could not delete rejected upload {}: {}", file.path(), e.getMessage());
+        }
+    }
+
+    public String tooLargeMessage() {
+        return "File exceeds the " + DataSize.ofBytes(maxFileSize).toMegabytes() + "MB limit";
+    }
+
+    private static String readField(String name, InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_FIELD_BYTES + 1);
+        if (bytes.length > MAX_FIELD_BYTES) {
+            throw new IllegalArgumentException("Field " + name + " is too large");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.java.eONE.model.Role;
 import jakarta.transaction.Transactional;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.Optional;
 
@@ -32,7 +33,9 @@ public class UserService {
 
     @Autowired private RoleRepository roleRepository;
     @Autowired private ClassroomRepository classroomRepository;
-    @Autowired private MailService mailService;
+    @Autowired private OutboxService outboxService;
+    @Autowired private BlobService blobService;
+    @Autowired private NotificationService notificationService;
     
     @Autowired
     private SubjectRepository subjectRepository;
@@ -72,6 +75,7 @@ public class UserService {
 
         user.setStatus(0); // pending approval
         User savedUser = userRepository.save(user);
+        notificationService.startBroadcastsFrom(savedUser);
         return toDTO(savedUser, null);
     }
 
@@ -92,10 +96,10 @@ public class UserService {
             if (teacher == null) return List.of();
 
             return userRepository.findByRoleClassroomStatusExcludingAdmin(role.getId(), teacher.getClassroom().getId(), 0)
-                    .stream().map(u -> toDTO(u, null)).collect(Collectors.toList());
+                    .stream().map(this::toListDTO).collect(Collectors.toList());
         } else {
             return userRepository.findByRoleAndStatusExcludingAdmin(role.getId(), 0)
-                    .stream().map(u -> toDTO(u, null)).collect(Collectors.toList());
+                    .stream().map(this::toListDTO).collect(Collectors.toList());
         }
     }
 
@@ -116,10 +120,10 @@ public class UserService {
             if (teacher == null) return List.of();
 
             return userRepository.findByRoleClassroomStatusExcludingAdmin(role.getId(), teacher.getClassroom().getId(), 1)
-                    .stream().map(u -> toDTO(u, null)).collect(Collectors.toList());
+                    .stream().map(this::toListDTO).collect(Collectors.toList());
         } else {
             return userRepository.findByRoleAndStatusExcludingAdmin(role.getId(), 1)
-                    .stream().map(u -> toDTO(u, null)).collect(Collectors.toList());
+                    .stream().map(this::toListDTO).collect(Collectors.toList());
         }
     }
 
@@ -130,7 +134,9 @@ public class UserService {
 
         user.setStatus(1); // approved
         userRepository.save(user);
-        mailService.sendApprovalEmail(user);
+        // Counters only count broadcasts for approved students; older ones start out read
+        notificationService.startBroadcastsFrom(user);
+        outboxService.enqueue(OutboxService.USER_APPROVED, Map.of("user_id", user.getId()));
         return true;
     }
 
@@ -141,12 +147,12 @@ public class UserService {
 
         user.setStatus(2); // rejected
         userRepository.save(user);
-        mailService.sendRejectionEmail(user);
+        outboxService.enqueue(OutboxService.USER_REJECTED, Map.of("user_id", user.getId()));
         return true;
     }
 
     public List<UserResponseDTO> getAllUsers() {
-        return userRepository.findAll().stream().map(u -> toDTO(u, null)).collect(Collectors.toList());
+        return userRepository.findAll().stream().map(this::toListDTO).collect(Collectors.toList());
     }
 
     public long getPendingApprovalsCount() {
@@ -164,10 +170,15 @@ public class UserService {
     }
 
     private UserResponseDTO toDTO(User user, String token) {
-        String avatarUrl = null;
-        if (user.getAvatar() != null && !user.getAvatar().isEmpty()) {
-            avatarUrl = "/uploads/" + user.getAvatar();
-        }
+        return toDTO(user, token, avatarPath(user));
+    }
+
+    // Lists only show small avatars, so they link the thumbnail rendition instead of the original
+    private UserResponseDTO toListDTO(User user) {
+        return toDTO(user, null, avatarPath(user, ImageVariantService.Variant.THUMB));
+    }
+
+    private UserResponseDTO toDTO(User user, String token, String avatarUrl) {
         return new UserResponseDTO(
                 user.getId(),
                 user.getEmail(),
@@ -204,17 +215,39 @@ public class UserService {
         return true;
     }
 
-    public UserResponseDTO setAvatarFilename(Long userId, String filename) {
+    // Relative avatar URL: the blob download path, or uploads/ for avatars stored before blobs
+    public static String avatarPath(User user) {
+        return avatarPath(user, null);
+    }
+
+    // Same, asking for a resized rendition; avatars stored before blobs have none and keep the original
+    public static String avatarPath(User user, ImageVariantService.Variant variant) {
+        if (user.getAvatarBlob() != null) {
+            String path = BlobService.downloadPath(user.getAvatarBlob(), user.getAvatar());
+            return variant != null ? path + "?variant=" + variant.key() : path;
+        }
+        if (user.getAvatar() != null && !user.getAvatar().isEmpty()) {
+            return "/uploads/" + user.getAvatar();
+        }
+        return null;
+    }
+
+    @Transactional
+    public UserResponseDTO setAvatar(Long userId, UploadService.StoredFile staged) {
         User user = userRepository.findById(userId).orElse(null);
         if (user == null) return null;
-        user.setAvatar(filename);
+        user.setAvatarBlob(blobService.replace(user.getAvatarBlob(), staged));
+        user.setAvatar(staged.fileName());
         userRepository.save(user);
         return toDTO(user, null);
     }
 
+    @Transactional
     public UserResponseDTO removeAvatar(Long userId) {
         User user = userRepository.findById(userId).orElse(null);
         if (user == null) return null;
+        blobService.release(user.getAvatarBlob());
+        user.setAvatarBlob(null);
         user.setAvatar(null);
         userRepository.save(user);
         return toDTO(user, null);
@@ -245,7 +278,9 @@ public class UserService {
 
     @Transactional
     public boolean deleteUserById(Long id) {
-        if (userRepository.existsById(id)) {
+        User user = userRepository.findById(id).orElse(null);
+        if (user != null) {
+            blobService.release(user.getAvatarBlob());
             userRepository.deleteById(id);
             return true;
         }
@@ -0,0 +1,26 @@
+package com.java.eONE.service;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Time-ordered UUIDs (RFC 9562 version 7): a 48-bit millisecond timestamp followed by random
+ * bits. Ids created later sort later, so they append to B-tree indexes instead of landing on
+ * random pages, and a directory listing of files named by them is in creation order.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long millis = System.currentTimeMillis();
+        long randA = RANDOM.nextInt(1 << 12);
+        long randB = RANDOM.nextLong();
+        long msb = (millis << 16) | (0x7L << 12) | randA;
+        long lsb = (randB & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -1,13 +1,25 @@
 package com.java.eONE.service.impl;
 
+import com.java.eONE.DTO.AssignmentStatsDTO;
 import com.java.eONE.DTO.ViewSubmittedAssignmentDTO;
+import com.java.eONE.model.AssignmentStats;
 import com.java.eONE.model.AssignmentSubmission;
+import com.java.eONE.repository.AssignmentStatsRepository;
 import com.java.eONE.repository.AssignmentSubmissionRepository;
 import com.java.eONE.service.AssignmentSubmissionService;
+import com.java.eONE.service.BlobService;
+import com.java.eONE.service.NotificationPreferenceService;
+import com.java.eONE.service.OutboxService;
+import com.java.eONE.service.ResumableUploadService;
+import com.java.eONE.service.SubmissionNotificationCoalescer;
+import com.java.eONE.service.UploadService;
 import org.springframework.stereotype.Service;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -15,9 +27,27 @@ import java.util.stream.Collectors;
 public class AssignmentSubmissionServiceImpl implements AssignmentSubmissionService {
 
     private final AssignmentSubmissionRepository submissionRepository;
+    private final AssignmentStatsRepository statsRepository;
+    private final OutboxService outboxService;
+    private final NotificationPreferenceService preferenceService;
+    private final SubmissionNotificationCoalescer coalescer;
+    private final BlobService blobService;
+    private final ResumableUploadService resumableUploadService;
 
-    public AssignmentSubmissionServiceImpl(AssignmentSubmissionRepository submissionRepository) {
+    public AssignmentSubmissionServiceImpl(AssignmentSubmissionRepository submissionRepository,
+                                           AssignmentStatsRepository statsRepository,
+                                           OutboxService outboxService,
+                                           NotificationPreferenceService preferenceService,
+                                           SubmissionNotificationCoalescer coalescer,
+                                           BlobService blobService,
+                                           ResumableUploadService resumableUploadService) {
         this.submissionRepository = submissionRepository;
+        this.statsRepository = statsRepository;
+        this.outboxService = outboxService;
+        this.preferenceService = preferenceService;
+        this.coalescer = coalescer;
+        this.blobService = blobService;
+        this.resumableUploadService = resumableUploadService;
     }
     
     @Override
@@ -31,19 +61,78 @@ public class AssignmentSubmissionServiceImpl implements AssignmentSubmissionServ
         return submissionRepository.save(submission);
     }
 
+    @Override
+    @Transactional
+    public AssignmentSubmission createSubmission(AssignmentSubmission submission) {
+        AssignmentSubmission saved = submissionRepository.save(submission);
+        statsRepository.recordSubmission(saved.getAssignment().getId(), saved.getCreatedAt(), LocalDateTime.now());
+
+        // Teacher notification is queued with the submission and delivered by the outbox dispatcher,
+        // unless the teacher muted the subject or takes submissions as a digest
+        var assignment = saved.getAssignment();
+        if (assignment.getTeacher() != null && preferenceService.wantsImmediateSubmissionNotice(
+                assignment.getTeacher().getId(), assignment.getSubject().getId())) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("submission_id", saved.getId());
+            payload.put("assignment_id", assignment.getId());
+            payload.put("teacher_id", assignment.getTeacher().getId());
+            payload.put("assignment_title", assignment.getTitle());
+            payload.put("message", saved.getUser().getName() + " has completed an assignment: " +
+                    assignment.getTitle() + ". Please review it.");
+            // Held until the end of the coalescing window so deadline bursts become one notification
+            outboxService.enqueue(OutboxService.SUBMISSION_CREATED, payload,
+                    coalescer.windowEnd(LocalDateTime.now()));
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public AssignmentSubmission createSubmission(AssignmentSubmission submission, UploadService.StoredFile file) {
+        submission.setFile(file.fileName());
+        submission.setFileBlob(blobService.attach(file));
+        return createSubmission(submission);
+    }
+
+    @Override
+    @Transactional
+    public AssignmentSubmission createSubmission(AssignmentSubmission submission, String uploadId) {
+        return createSubmission(submission, resumableUploadService.claim(uploadId));
+    }
+
+    @Override
+    @Transactional
+    public AssignmentSubmission replaceFile(AssignmentSubmission submission, UploadService.StoredFile file) {
+        submission.setFileBlob(blobService.replace(submission.getFileBlob(), file));
+        submission.setFile(file.fileName());
+        return submissionRepository.save(submission);
+    }
+
+    @Override
+    @Transactional
+    public AssignmentSubmission replaceFile(AssignmentSubmission submission, String uploadId) {
+        return replaceFile(submission, resumableUploadService.claim(uploadId));
+    }
+
     @Override
     public Optional<AssignmentSubmission> getSubmissionById(Long id) {
         return submissionRepository.findById(id);
     }
 
     @Override
+    @Transactional
     public AssignmentSubmission updateMarksAndGrade(Long id, Integer marks, String grade) {
-        Optional<AssignmentSubmission> optionalSubmission = submissionRepository.findById(id);
+        Optional<AssignmentSubmission> optionalSubmission = submissionRepository.findByIdForUpdate(id);
         if (optionalSubmission.isPresent()) {
             AssignmentSubmission submission = optionalSubmission.get();
+            Integer previousMarks = submission.getMarks();
+            boolean wasGraded = isGraded(submission);
             submission.setMarks(marks);
             submission.setGrade(grade);
-            return submissionRepository.save(submission);
+            AssignmentSubmission saved = submissionRepository.save(submission);
+            recordGrading(saved, previousMarks, wasGraded);
+            enqueueGradedNotification(saved, marks, grade);
+            return saved;
         } else {
             throw new RuntimeException("AssignmentSubmission not found with id " + id);
         }
@@ -62,43 +151,87 @@ public class AssignmentSubmissionServiceImpl implements AssignmentSubmissionServ
             dto.setFile(s.getFile());
             
             // Generate proper file URL similar to how teacher assignments work
-            String fileUrl = null;
-            if (s.getFile() != null && !s.getFile().isEmpty()) {
-                fileUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                        .path("/submissionFile/")
-                        .path(s.getFile())
-                        .toUriString();
+            dto.setFileUrl(blobService.fileUrl(s.getFileBlob(), s.getFile(), "/submissionFile/"));
+            if (s.getFileBlob() != null) {
+                dto.setFileSize(s.getFileBlob().getByteSize());
+                dto.setContentType(BlobService.contentType(s.getFileBlob(), s.getFile()));
             }
-            dto.setFileUrl(fileUrl);
             
             dto.setCreatedAt(s.getCreatedAt());
             dto.setMarks(s.getMarks());
             dto.setGrade(s.getGrade());
-            dto.setStatus(s.getMarks() == null ? "pending" : "graded");
+            dto.setStatus(isGraded(s) ? "graded" : "pending");
             return dto;
         }).collect(Collectors.toList());
     }
     
     @Override
+    @Transactional
     public boolean submitMarks(Long submissionId, Integer marks, String grade) {
-        var optSubmission = submissionRepository.findById(submissionId);
+        var optSubmission = submissionRepository.findByIdForUpdate(submissionId);
         if (optSubmission.isEmpty()) return false;
 
         AssignmentSubmission submission = optSubmission.get();
+        Integer previousMarks = submission.getMarks();
+        boolean wasGraded = isGraded(submission);
         submission.setMarks(marks);
         submission.setGrade(grade);
         submissionRepository.save(submission);
+        recordGrading(submission, previousMarks, wasGraded);
+        enqueueGradedNotification(submission, marks, grade);
         return true;
     }
 
+    // Moves the assignment's totals by what this (re)grade changed
+    private void recordGrading(AssignmentSubmission submission, Integer previousMarks, boolean wasGraded) {
+        long gradedDelta = (isGraded(submission) ? 1 : 0) - (wasGraded ? 1 : 0);
+        long markedDelta = (submission.getMarks() != null ? 1 : 0) - (previousMarks != null ? 1 : 0);
+        long marksDelta = (submission.getMarks() != null ? submission.getMarks() : 0)
+                - (previousMarks != null ? previousMarks : 0);
+        if (gradedDelta != 0 || markedDelta != 0 || marksDelta != 0) {
+            statsRepository.recordGrading(submission.getAssignment().getId(), gradedDelta, markedDelta, marksDelta,
+                    LocalDateTime.now());
+        }
+    }
+
+    private static boolean isGraded(AssignmentSubmission s) {
+        return s.getMarks() != null || (s.getGrade() != null && !s.getGrade().isEmpty());
+    }
+
+    private void enqueueGradedNotification(AssignmentSubmission submission, Integer marks, String grade) {
+        if (preferenceService.isSubjectMuted(submission.getUser().getId(),
+                submission.getAssignment().getSubject().getId())) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("submission_id", submission.getId());
+        payload.put("assignment_id", submission.getAssignment().getId());
+        payload.put("user_id", submission.getUser().getId());
+        payload.put("message", "Your assignment '" + submission.getAssignment().getTitle() +
+                "' has been graded. Marks: " + (marks != null ? marks : "N/A") +
+                (grade != null && !grade.isEmpty() ? ", Grade: " + grade : ""));
+        outboxService.enqueue(OutboxService.SUBMISSION_GRADED, payload);
+    }
+
     @Override
     public boolean hasAnySubmission(Long assignmentId) {
-        return !submissionRepository.findByAssignmentId(assignmentId).isEmpty();
+        return statsRepository.findById(assignmentId).map(s -> s.getSubmissionCount() > 0).orElse(false);
     }
 
     @Override
     public boolean hasAnyGradedSubmission(Long assignmentId) {
-        return submissionRepository.findByAssignmentId(assignmentId)
-                .stream().anyMatch(s -> s.getMarks() != null || (s.getGrade() != null && !s.getGrade().isEmpty()));
+        return statsRepository.findById(assignmentId).map(s -> s.getGradedCount() > 0).orElse(false);
+    }
+
+    @Override
+    public AssignmentStatsDTO getStats(Long assignmentId) {
+        AssignmentStats stats = statsRepository.findById(assignmentId).orElse(null);
+        if (stats == null) {
+            return new AssignmentStatsDTO(assignmentId, 0, 0, 0, null, null);
+        }
+        Double averageMarks = stats.getMarkedCount() > 0
+                ? (double) stats.getMarksSum() / stats.getMarkedCount() : null;
+        return new AssignmentStatsDTO(assignmentId, stats.getSubmissionCount(), stats.getGradedCount(),
+                stats.getSubmissionCount() - stats.getGradedCount(), averageMarks, stats.getLastSubmissionAt());
     }
 }
@@ -0,0 +1,85 @@
+package com.java.eONE.service.impl;
+
+import com.java.eONE.service.StorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+// Blobs on this node's filesystem under storage.root; downloads are served by FileController
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalStorageService implements StorageService {
+
+    private final Path root;
+
+    public LocalStorageService(@Value("${storage.root:storage}") String root) {
+        this.root = Paths.get(root);
+    }
+
+    @Override
+    public void put(String key, Path staged) throws IOException {
+        Path target = root.resolve(key);
+        Files.createDirectories(target.getParent());
+        // A rename within one filesystem; replacing an existing target is fine since keys are content hashes
+        try {
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Target on another mount (e.g. cold/): copy next to it, then rename into place
+            Path partial = target.resolveSibling(target.getFileName() + ".partial");
+            Files.copy(staged, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(staged);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(root.resolve(key));
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws IOException {
+        Path target = root.resolve(targetKey);
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            // A hard link costs no data copy; stored objects are never modified in place
+            Files.createLink(target, root.resolve(sourceKey));
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(root.resolve(sourceKey), target);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(root.resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(root.resolve(key));
+    }
+
+    @Override
+    public Optional<URI> directDownloadUrl(String key, String fileName, String contentType) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(root.resolve(key));
+    }
+}
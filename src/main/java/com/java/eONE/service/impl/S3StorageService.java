@@ -0,0 +1,142 @@
+package com.java.eONE.service.impl;
+
+import com.java.eONE.service.StorageService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Blobs in an S3-compatible bucket (AWS S3, MinIO for local runs). Clients download
+ * through presigned GET URLs, so file bytes never pass through the app.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+public class S3StorageService implements StorageService {
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final Duration presignTtl;
+
+    public S3StorageService(@Value("${storage.s3.bucket}") String bucket,
+                            @Value("${storage.s3.region:us-east-1}") String region,
+                            @Value("${storage.s3.endpoint:}") String endpoint,
+                            @Value("${storage.s3.access-key:}") String accessKey,
+                            @Value("${storage.s3.secret-key:}") String secretKey,
+                            @Value("${storage.s3.path-style:false}") boolean pathStyle,
+                            @Value("${storage.s3.presign-ttl:PT15M}") Duration presignTtl) {
+        AwsCredentialsProvider credentials = accessKey.isEmpty()
+                ? DefaultCredentialsProvider.builder().build()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        // MinIO and most self-hosted stores need path-style addressing (http://host/bucket/key)
+        S3Configuration s3Configuration = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+
+        var clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        if (!endpoint.isEmpty()) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+
+        this.s3 = clientBuilder.build();
+        this.presigner = presignerBuilder.build();
+        this.bucket = bucket;
+        this.presignTtl = presignTtl;
+    }
+
+    @Override
+    public void put(String key, Path staged) throws IOException {
+        s3.putObject(b -> b.bucket(bucket).key(key), RequestBody.fromFile(staged));
+        Files.deleteIfExists(staged);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        try {
+            s3.headObject(b -> b.bucket(bucket).key(key));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) {
+        s3.copyObject(b -> b.sourceBucket(bucket).sourceKey(sourceKey)
+                .destinationBucket(bucket).destinationKey(targetKey));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return s3.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        s3.deleteObject(b -> b.bucket(bucket).key(key));
+    }
+
+    @Override
+    public Optional<URI> directDownloadUrl(String key, String fileName, String contentType) {
+        String disposition = ContentDisposition.inline()
+                .filename(fileName != null ? fileName : "file", StandardCharsets.UTF_8)
+                .build()
+                .toString();
+        var presigned = presigner.presignGetObject(p -> p
+                .signatureDuration(presignTtl)
+                .getObjectRequest(g -> g.bucket(bucket)
+                        .key(key)
+                        .responseContentType(contentType)
+                        .responseContentDisposition(disposition)));
+        try {
+            return Optional.of(presigned.url().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Presigned URL is not a valid URI", e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    @PreDestroy
+    public void close() {
+        presigner.close();
+        s3.close();
+    }
+}
@@ -1,8 +1,8 @@
 -- Ensure plpgsql extension present (Rails enables this by default)
 CREATE EXTENSION IF NOT EXISTS plpgsql;
 
--- ActiveStorage-compatible tables to mirror Rails schema (for parity only)
--- These tables are not used by the Java app but keep the DB structure aligned.
+-- ActiveStorage-compatible tables to mirror Rails schema. The Java app only reads them
+-- once, in ActiveStorageMigrationService, to import files uploaded through the Rails app.
 
 CREATE TABLE IF NOT EXISTS active_storage_blobs (
     id BIGSERIAL PRIMARY KEY,
@@ -43,3 +43,69 @@ CREATE TABLE IF NOT EXISTS active_storage_variant_records (
 CREATE UNIQUE INDEX IF NOT EXISTS index_active_storage_variant_records_uniqueness
     ON active_storage_variant_records (blob_id, variation_digest);
 
+-- Progress of the ActiveStorage import: the last attachment id of the last finished chunk,
+-- and attachments that failed (retried first on the next run).
+CREATE TABLE IF NOT EXISTS active_storage_migration_checkpoints (
+    name VARCHAR PRIMARY KEY,
+    last_attachment_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS active_storage_migration_failures (
+    attachment_id BIGINT PRIMARY KEY,
+    error TEXT NOT NULL,
+    failed_at TIMESTAMP NOT NULL
+);
+
+
+-- Partial indexes over unread notifications only; they back the bulk mark-as-read
+-- UPDATEs and stay small because read rows drop out of them.
+CREATE INDEX IF NOT EXISTS index_notifications_unread_on_user_id
+    ON notifications (user_id, created_at, id) WHERE read_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS index_notifications_unread_on_teacher_id
+    ON notifications (teacher_id, created_at, id) WHERE read_at IS NULL;
+
+-- Seed unread counters once, when upgrading a database that has notifications but no
+-- counters yet: unread personal notifications, plus for approved students the classroom
+-- broadcasts above their read watermark. This script runs on every boot, so the seed is
+-- skipped (a one-time filter, before any scan) as soon as the table has rows; from then on
+-- the application maintains the counters.
+INSERT INTO notification_counters (user_id, unread_count, updated_at)
+SELECT unread.user_id, SUM(unread.count), NOW()
+FROM (
+    SELECT COALESCE(n.user_id, n.teacher_id) AS user_id, COUNT(*) AS count
+    FROM notifications n
+    WHERE n.read_at IS NULL AND COALESCE(n.user_id, n.teacher_id) IS NOT NULL
+    GROUP BY COALESCE(n.user_id, n.teacher_id)
+    UNION ALL
+    SELECT u.id, COUNT(*)
+    FROM users u
+    JOIN roles r ON r.id = u.role_id
+    JOIN notifications n ON n.classroom_id = u.classroom_id
+    LEFT JOIN broadcast_read_states b ON b.user_id = u.id
+    WHERE r.name = 'Student' AND u.status = 1 AND n.id > COALESCE(b.read_through_id, 0)
+      AND NOT EXISTS (SELECT 1 FROM assignments a JOIN notification_muted_subjects m ON m.subject_id = a.subject_id
+                      WHERE a.id = n.assignment_id AND m.user_id = u.id)
+    GROUP BY u.id
+) unread
+WHERE NOT EXISTS (SELECT 1 FROM notification_counters)
+GROUP BY unread.user_id
+ON CONFLICT (user_id) DO NOTHING;
+
+-- Seed submission stats once, when upgrading a database that has submissions but no
+-- stats yet. Skipped as soon as the table has rows, like the counter seed above; from then
+-- on the application maintains them.
+INSERT INTO assignment_stats (assignment_id, submission_count, graded_count, marked_count, marks_sum,
+                              last_submission_at, updated_at)
+SELECT s.assignment_id,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE s.marks IS NOT NULL OR COALESCE(s.grade, '') <> ''),
+       COUNT(s.marks),
+       COALESCE(SUM(s.marks), 0),
+       MAX(s.created_at),
+       NOW()
+FROM assignment_submissions s
+WHERE NOT EXISTS (SELECT 1 FROM assignment_stats)
+GROUP BY s.assignment_id
+ON CONFLICT (assignment_id) DO NOTHING;
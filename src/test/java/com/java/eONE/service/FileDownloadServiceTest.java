@@ -0,0 +1,201 @@
+package com.java.eONE.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileDownloadServiceTest {
+
+	private static final String CONTENT = "0123456789";
+	private static final String ETAG = "\"abc123\"";
+
+	private final FileDownloadService service = new FileDownloadService();
+
+	@TempDir
+	Path dir;
+
+	private Path file;
+
+	@BeforeEach
+	void writeFile() throws IOException {
+		file = Files.writeString(dir.resolve("notes.txt"), CONTENT, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void sendsWholeFileWithoutRange() throws IOException {
+		MockHttpServletResponse response = serve(get());
+
+		assertEquals(200, response.getStatus());
+		assertEquals(CONTENT, response.getContentAsString());
+		assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		assertEquals("private, max-age=31536000, immutable", response.getHeader(HttpHeaders.CACHE_CONTROL));
+	}
+
+	@Test
+	void sendsClosedRange() throws IOException {
+		assertPartial(range("bytes=2-5"), "2345", "bytes 2-5/10");
+	}
+
+	@Test
+	void sendsOpenEndedRange() throws IOException {
+		assertPartial(range("bytes=7-"), "789", "bytes 7-9/10");
+	}
+
+	@Test
+	void clampsRangePastTheEnd() throws IOException {
+		assertPartial(range("bytes=8-100"), "89", "bytes 8-9/10");
+	}
+
+	@Test
+	void sendsSuffixRange() throws IOException {
+		assertPartial(range("bytes=-3"), "789", "bytes 7-9/10");
+	}
+
+	@Test
+	void sendsWholeFileForSuffixLongerThanFile() throws IOException {
+		assertPartial(range("bytes=-25"), CONTENT, "bytes 0-9/10");
+	}
+
+	@Test
+	void rejectsRangeStartingPastTheEnd() throws IOException {
+		assertUnsatisfiable(range("bytes=10-"));
+	}
+
+	@Test
+	void rejectsReversedRange() throws IOException {
+		assertUnsatisfiable(range("bytes=5-2"));
+	}
+
+	@Test
+	void rejectsEmptySuffixRange() throws IOException {
+		assertUnsatisfiable(range("bytes=-0"));
+	}
+
+	@Test
+	void answersMultiRangeWithWholeFile() throws IOException {
+		assertWhole(range("bytes=0-1,4-5"));
+	}
+
+	@Test
+	void ignoresMalformedAndForeignRanges() throws IOException {
+		assertWhole(range("bytes=abc-def"));
+		assertWhole(range("bytes=5"));
+		assertWhole(range("items=0-1"));
+	}
+
+	@Test
+	void honoursRangeWhenIfRangeMatches() throws IOException {
+		MockHttpServletRequest request = range("bytes=0-1");
+		request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+		assertPartial(request, "01", "bytes 0-1/10");
+	}
+
+	@Test
+	void sendsWholeFileWhenIfRangeIsStale() throws IOException {
+		MockHttpServletRequest request = range("bytes=0-1");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"older\"");
+
+		assertWhole(request);
+	}
+
+	@Test
+	void answersMatchingIfNoneMatchWithNotModified() throws IOException {
+		MockHttpServletRequest request = range("bytes=0-1");
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + ETAG);
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(304, response.getStatus());
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void sendsHeadersOnlyForHead() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/");
+		request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(206, response.getStatus());
+		assertEquals(4, response.getContentLengthLong());
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void handsRangeToSendfileWhenOffered() throws IOException {
+		MockHttpServletRequest request = range("bytes=2-5");
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(206, response.getStatus());
+		assertEquals(0, response.getContentAsByteArray().length);
+		assertEquals(2L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+		// Tomcat's end is exclusive
+		assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+	}
+
+	@Test
+	void answersMissingFileWithNotFound() throws IOException {
+		Files.delete(file);
+
+		MockHttpServletResponse response = serve(get());
+
+		assertEquals(404, response.getStatus());
+		assertNull(response.getHeader(HttpHeaders.ETAG));
+	}
+
+	private void assertPartial(MockHttpServletRequest request, String body, String contentRange) throws IOException {
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(206, response.getStatus());
+		assertEquals(contentRange, response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(body.length(), response.getContentLengthLong());
+		assertEquals(body, response.getContentAsString());
+	}
+
+	private void assertUnsatisfiable(MockHttpServletRequest request) throws IOException {
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	private void assertWhole(MockHttpServletRequest request) throws IOException {
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(200, response.getStatus());
+		assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(CONTENT, response.getContentAsString());
+	}
+
+	private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		service.serve(file, CONTENT.length(), ETAG, "notes.txt", "text/plain", request, response);
+		return response;
+	}
+
+	private static MockHttpServletRequest get() {
+		return new MockHttpServletRequest("GET", "/");
+	}
+
+	private static MockHttpServletRequest range(String value) {
+		MockHttpServletRequest request = get();
+		request.addHeader(HttpHeaders.RANGE, value);
+		return request;
+	}
+}
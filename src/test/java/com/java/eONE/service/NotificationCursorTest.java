@@ -0,0 +1,90 @@
+package com.java.eONE.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationCursorTest {
+
+	private static final LocalDateTime AT = LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000);
+
+	@Test
+	void roundTripsPosition() {
+		NotificationCursor cursor = new NotificationCursor(AT, 42L);
+
+		NotificationCursor decoded = NotificationCursor.decode(cursor.encode());
+
+		assertEquals(cursor, decoded);
+		assertTrue(decoded.recentIds().isEmpty());
+	}
+
+	@Test
+	void roundTripsRecentIds() {
+		NotificationCursor cursor = new NotificationCursor(AT, 42L, List.of(40L, 41L, 42L));
+
+		assertEquals(cursor, NotificationCursor.decode(cursor.encode()));
+	}
+
+	@Test
+	void encodesAsUrlSafeTokenWithoutPadding() {
+		String token = new NotificationCursor(AT, Long.MAX_VALUE, List.of(1L, 2L)).encode();
+
+		assertFalse(token.contains("="));
+		assertFalse(token.contains("+"));
+		assertFalse(token.contains("/"));
+	}
+
+	@Test
+	void acceptsEmptyRecentIds() {
+		NotificationCursor decoded = NotificationCursor.decode(token(AT + "|7|"));
+
+		assertEquals(new NotificationCursor(AT, 7L), decoded);
+	}
+
+	@Test
+	void roundTripsHeadAndOrigin() {
+		assertEquals(NotificationCursor.HEAD, NotificationCursor.decode(NotificationCursor.HEAD.encode()));
+		assertEquals(NotificationCursor.ORIGIN, NotificationCursor.decode(NotificationCursor.ORIGIN.encode()));
+	}
+
+	@Test
+	void ordersLikeTheFeed() {
+		NotificationCursor earlier = new NotificationCursor(AT, 9L);
+		NotificationCursor sameTimeHigherId = new NotificationCursor(AT, 10L);
+		NotificationCursor later = new NotificationCursor(AT.plusNanos(1_000_000), 1L);
+
+		assertTrue(NotificationCursor.ORDER.compare(earlier, sameTimeHigherId) < 0);
+		assertTrue(NotificationCursor.ORDER.compare(sameTimeHigherId, later) < 0);
+		assertTrue(NotificationCursor.ORDER.compare(NotificationCursor.ORIGIN, earlier) < 0);
+		assertTrue(NotificationCursor.ORDER.compare(later, NotificationCursor.HEAD) < 0);
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		assertInvalid("not base64!");
+		assertInvalid("");
+		assertInvalid(token("2026-03-14T09:26:53"));
+		assertInvalid(token("yesterday|42"));
+		assertInvalid(token(AT + "|forty-two"));
+		assertInvalid(token(AT + "|42|1,x"));
+		assertInvalid(token(AT + "|42|1|2"));
+	}
+
+	private static void assertInvalid(String token) {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> NotificationCursor.decode(token));
+		assertEquals("Invalid notification cursor", e.getMessage());
+	}
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
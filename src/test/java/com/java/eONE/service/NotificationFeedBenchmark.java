@@ -0,0 +1,82 @@
+package com.java.eONE.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.java.eONE.DTO.NotificationMessageDTO;
+import com.java.eONE.model.Assignment;
+import com.java.eONE.model.Notification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Feed encoding: per-request DTO mapping plus Jackson (the previous path) against
+ * concatenating cached payloads from {@link NotificationPayloadCache}.
+ *
+ * Run with:
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main NotificationFeedBenchmark -prof gc
+ * after mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationFeedBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private NotificationPayloadCache cache;
+    private List<Notification> page;
+
+    @Setup
+    public void setUp() {
+        // Same date handling as the Spring Boot configured mapper
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        cache = new NotificationPayloadCache(objectMapper, 10_000);
+
+        Assignment assignment = new Assignment();
+        LocalDateTime now = LocalDateTime.now();
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Notification n = new Notification();
+            n.setId((long) i + 1);
+            n.setAssignment(i % 2 == 0 ? assignment : null);
+            n.setMessage("Your assignment 'Chapter " + i + " exercises' has been graded. Marks: 85, Grade: A");
+            n.setCreatedAt(now.minusMinutes(i));
+            page.add(n);
+            cache.remember(n);
+        }
+    }
+
+    @Benchmark
+    public byte[] dtoAndJackson() throws Exception {
+        List<NotificationMessageDTO> dtos = page.stream().map(NotificationService::toDTO).collect(Collectors.toList());
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] cachedFragments() {
+        return cache.toJsonArray(page);
+    }
+}
@@ -0,0 +1,166 @@
+package com.java.eONE.service;
+
+import com.java.eONE.model.UploadSession;
+import com.java.eONE.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResumableUploadServiceTest {
+
+	@TempDir
+	Path dir;
+
+	private UploadSessionRepository sessionRepository;
+	private ResumableUploadService service;
+	private UploadSession session;
+
+	@BeforeEach
+	void createUpload() throws IOException {
+		sessionRepository = mock(UploadSessionRepository.class);
+		when(sessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(sessionRepository.advance(anyString(), anyLong(), anyLong(), any())).thenReturn(1);
+		BlobService blobService = mock(BlobService.class);
+		when(blobService.stagingDir()).thenReturn(dir);
+
+		service = new ResumableUploadService(sessionRepository, blobService, DataSize.ofMegabytes(1), Duration.ofHours(24));
+		session = service.create("notes.txt", 10);
+	}
+
+	@Test
+	void appendsChunkAtCurrentOffset() throws IOException {
+		assertEquals(4, service.append(session, 0, body("0123")));
+
+		verify(sessionRepository).advance(eq(session.getId()), eq(0L), eq(4L), any());
+		assertEquals("0123", stored().substring(0, 4));
+	}
+
+	@Test
+	void skipsBytesAlreadyStoredWhenChunkIsRetried() throws IOException {
+		service.append(session, 0, body("0123"));
+		session.setUploadOffset(4L);
+
+		// The response to the first chunk was lost, so the client resends it with two more bytes
+		assertEquals(6, service.append(session, 0, body("012345")));
+
+		verify(sessionRepository).advance(eq(session.getId()), eq(4L), eq(6L), any());
+		assertEquals("012345", stored().substring(0, 6));
+	}
+
+	@Test
+	void acceptsFullyStoredChunkAsNoOp() throws IOException {
+		service.append(session, 0, body("0123"));
+		session.setUploadOffset(4L);
+
+		assertEquals(4, service.append(session, 1, body("123")));
+
+		verify(sessionRepository, never()).advance(eq(session.getId()), eq(4L), anyLong(), any());
+	}
+
+	@Test
+	void rejectsChunkStartingPastCurrentOffset() {
+		session.setUploadOffset(4L);
+
+		ResumableUploadService.OffsetConflictException e = assertThrows(ResumableUploadService.OffsetConflictException.class,
+				() -> service.append(session, 6, body("67")));
+
+		assertEquals(4, e.getCurrentOffset());
+		verify(sessionRepository, never()).advance(anyString(), anyLong(), anyLong(), any());
+	}
+
+	@Test
+	void rejectsNegativeOffset() {
+		assertThrows(ResumableUploadService.OffsetConflictException.class,
+				() -> service.append(session, -1, body("0")));
+	}
+
+	@Test
+	void reportsOffsetOfTheRequestThatWonTheRace() {
+		// Another request advanced the offset between reading the session and writing this chunk
+		when(sessionRepository.advance(anyString(), anyLong(), anyLong(), any())).thenReturn(0);
+		UploadSession moved = new UploadSession();
+		moved.setUploadOffset(7L);
+		when(sessionRepository.findById(session.getId())).thenReturn(Optional.of(moved));
+
+		ResumableUploadService.OffsetConflictException e = assertThrows(ResumableUploadService.OffsetConflictException.class,
+				() -> service.append(session, 0, body("0123")));
+
+		assertEquals(7, e.getCurrentOffset());
+	}
+
+	@Test
+	void storesUpToUploadLengthAndRejectsOverrun() throws IOException {
+		service.append(session, 0, body("01234567"));
+		session.setUploadOffset(8L);
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> service.append(session, 8, body("89XYZ")));
+
+		assertEquals("Chunk runs past Upload-Length", e.getMessage());
+		verify(sessionRepository).advance(eq(session.getId()), eq(8L), eq(10L), any());
+		assertEquals("0123456789", stored());
+	}
+
+	@Test
+	void keepsBytesReceivedBeforeClientDropped() throws IOException {
+		IOException reset = new IOException("Connection reset");
+		InputStream dropping = new InputStream() {
+			private int sent;
+
+			@Override
+			public int read() throws IOException {
+				if (sent == 3) {
+					throw reset;
+				}
+				return '0' + sent++;
+			}
+		};
+
+		IOException e = assertThrows(IOException.class, () -> service.append(session, 0, dropping));
+
+		assertSame(reset, e);
+		verify(sessionRepository).advance(eq(session.getId()), eq(0L), eq(3L), any());
+		assertEquals("012", stored().substring(0, 3));
+	}
+
+	@Test
+	void failsWhenPartFileIsGone() throws IOException {
+		Files.delete(partFile());
+
+		assertThrows(IllegalStateException.class, () -> service.append(session, 0, body("0123")));
+	}
+
+	private Path partFile() {
+		return dir.resolve("resumable").resolve(session.getId() + ".part");
+	}
+
+	private String stored() throws IOException {
+		return Files.readString(partFile(), StandardCharsets.UTF_8);
+	}
+
+	private static InputStream body(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}